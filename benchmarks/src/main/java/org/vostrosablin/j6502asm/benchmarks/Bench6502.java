@@ -0,0 +1,35 @@
+package org.vostrosablin.j6502asm.benchmarks;
+//J6502ASM - Benchmark Runner (Bench6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class Bench6502 { //JMH with allocation profiling always on and results saved as JSON, takes usual JMH arguments
+	public static void main(String[] args) throws Exception
+	{
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		ChainedOptionsBuilder opts = new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class); //gc.alloc.rate.norm is tracked next to time
+		if (!cmd.getResult().hasValue()) opts.result("jmh-result.json");
+		if (!cmd.getResultFormat().hasValue()) opts.resultFormat(ResultFormatType.JSON);
+		new Runner(opts.build()).run();
+	}
+}
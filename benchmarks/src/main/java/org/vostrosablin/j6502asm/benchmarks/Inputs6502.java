@@ -0,0 +1,127 @@
+package org.vostrosablin.j6502asm.benchmarks;
+//J6502ASM - Benchmark Input Generator (Inputs6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+public class Inputs6502 { //Generated sources of several shapes, each one assembles to most of 64K
+	public static final String BRANCHES = "branches"; //Short loops, forward and backward relative branches
+	public static final String LABELS = "labels"; //Many labels, absolute forward references through fixups
+	public static final String TABLES = "tables"; //Large .DB tables in every number base
+	public static final String INCLUDES = "includes"; //Deep tree of small included files
+	private static final int INCLUDE_DEPTH = 5, INCLUDE_FANOUT = 3;
+	public static String write(String shape, File dir) throws IOException //Write source of shape into dir, returns path of main file
+	{
+		File main = new File(dir, shape + ".asm");
+		if (shape.equals(INCLUDES))
+		{
+			writeTree(main, dir, "I", 0);
+			return main.getPath();
+		}
+		StringBuilder sb = new StringBuilder();
+		if (shape.equals(BRANCHES)) branches(sb);
+		else if (shape.equals(LABELS)) labels(sb);
+		else if (shape.equals(TABLES)) tables(sb);
+		else throw new IllegalArgumentException("Unknown input shape " + shape);
+		save(main, sb);
+		return main.getPath();
+	}
+	private static void save(File f, StringBuilder sb) throws IOException
+	{
+		Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+		try {
+			w.write(sb.toString());
+		} finally {
+			w.close();
+		}
+	}
+	private static void branches(StringBuilder sb) //12 bytes per block
+	{
+		sb.append("; Branch-heavy code\n");
+		for (int i = 0; i < 4000; i++)
+		{
+			sb.append("B").append(i).append(": LDX #$10\n");
+			sb.append("L").append(i).append(": DEX ; Inner loop\n");
+			sb.append(" BNE L").append(i).append('\n');
+			sb.append(" CMP #$20\n");
+			sb.append(" BEQ F").append(i).append(" ; Forward branch\n");
+			sb.append(" BCC B").append(i).append('\n');
+			sb.append("F").append(i).append(": NOP\n");
+		}
+	}
+	private static void labels(StringBuilder sb) //10 bytes per routine, then a byte of data for each
+	{
+		int n = 3000;
+		sb.append("; Label-heavy code\n");
+		for (int i = 0; i < n; i++)
+		{
+			sb.append("SUB_").append(i).append(": LDA DATA_").append(i).append('\n'); //Forward to data area
+			sb.append(" JSR SUB_").append((i * 7919) % n).append('\n'); //Either direction
+			sb.append(" JMP NEXT_").append(i).append('\n');
+			sb.append("NEXT_").append(i).append(": RTS\n");
+		}
+		for (int i = 0; i < n; i++) sb.append("DATA_").append(i).append(": .DB ").append(i & 0xFF).append('\n');
+	}
+	private static void tables(StringBuilder sb) //16 bytes per line
+	{
+		sb.append("; Data tables\n");
+		for (int i = 0; i < 3500; i++)
+		{
+			if ((i % 256) == 0) sb.append("TABLE").append(i / 256).append(":\n");
+			sb.append(" .DB ");
+			for (int k = 0; k < 16; k++)
+			{
+				int v = (i * 16 + k) & 0xFF;
+				if (k > 0) sb.append(", ");
+				switch (k % 4)
+				{
+					case 0: sb.append(v); break;
+					case 1: sb.append('$').append(Integer.toHexString(v).toUpperCase()); break;
+					case 2: sb.append('%').append(Integer.toBinaryString(v)); break;
+					default: sb.append("$").append(Integer.toHexString(v)); break;
+				}
+			}
+			sb.append('\n');
+		}
+	}
+	private static void writeTree(File f, File dir, String id, int depth) throws IOException //File with some code, including its children
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("; Module ").append(id).append('\n');
+		for (int k = 0; k < 10; k++)
+		{
+			sb.append(id).append('_').append(k).append(": LDA #").append(k).append('\n');
+			sb.append(" STA $0200,X\n");
+			sb.append(" BNE ").append(id).append('_').append(k).append('\n');
+		}
+		if (depth < INCLUDE_DEPTH)
+		{
+			for (int c = 0; c < INCLUDE_FANOUT; c++)
+			{
+				String child = id + c;
+				File cf = new File(dir, child + ".asm");
+				sb.append(".INCLUDE \"").append(cf.getAbsolutePath()).append("\"\n"); //Includes are found relative to working directory otherwise
+				writeTree(cf, dir, child, depth + 1);
+			}
+		}
+		save(f, sb);
+	}
+}
@@ -0,0 +1,96 @@
+package org.vostrosablin.j6502asm.benchmarks;
+//J6502ASM - Assembler Stage Benchmarks (Stages6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vostrosablin.j6502asm.Lex6502;
+import org.vostrosablin.j6502asm.Lex6502.LexerError;
+import org.vostrosablin.j6502asm.Mem6502;
+import org.vostrosablin.j6502asm.Parse6502;
+import org.vostrosablin.j6502asm.Parse6502.ParserError;
+import org.vostrosablin.j6502asm.Prep6502;
+import org.vostrosablin.j6502asm.Src6502;
+import org.vostrosablin.j6502asm.Tok6502;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Stages6502 { //Each stage alone on output of the previous one, then all of them together
+	@Param({Inputs6502.BRANCHES, Inputs6502.LABELS, Inputs6502.TABLES, Inputs6502.INCLUDES})
+	public String shape;
+	private File dir;
+	private String main;
+	private Src6502 source; //Stage 1 output
+	private Tok6502 tokens; //Stage 2 output, parser only reads it
+	@Setup(Level.Trial)
+	public void setup() throws IOException, LexerError, ParserError
+	{
+		dir = Files.createTempDirectory("j6502asm-bench").toFile();
+		main = Inputs6502.write(shape, dir);
+		source = new Prep6502().preprocess(main);
+		tokens = new Lex6502(source).tokenizeInput();
+		new Parse6502(tokens).parseAndAssemble(); //Input must assemble, or the numbers mean nothing
+	}
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		File[] files = dir.listFiles();
+		for (int i = 0; i < files.length; i++) files[i].delete();
+		dir.delete();
+	}
+	@Benchmark
+	public Src6502 preprocess() throws IOException //Fresh preprocessor, so nothing comes from its cache
+	{
+		return new Prep6502().preprocess(main);
+	}
+	@Benchmark
+	public Tok6502 tokenizeInput() throws LexerError
+	{
+		return new Lex6502(source).tokenizeInput();
+	}
+	@Benchmark
+	public Mem6502 parseAndAssemble() throws ParserError
+	{
+		return new Parse6502(tokens).parseAndAssemble();
+	}
+	@Benchmark
+	public Mem6502 pipeline() throws IOException, LexerError, ParserError
+	{
+		Src6502 s = new Prep6502().preprocess(main);
+		return new Parse6502(new Lex6502(s).tokenizeInput()).parseAndAssemble();
+	}
+}
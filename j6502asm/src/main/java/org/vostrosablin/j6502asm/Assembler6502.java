@@ -0,0 +1,107 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Embedding Interface (Assembler6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.vostrosablin.j6502asm.Lex6502.LexerError;
+import org.vostrosablin.j6502asm.Parse6502.ParserError;
+
+public final class Assembler6502 { //Assembles source held in memory. Every call works on its own state, so it may run on many threads at once.
+	public static class Result { //Memory image, or diagnostics telling why there is none
+		private Mem6502 image;
+		private int lines;
+		private List<String> diagnostics;
+		private Result(Mem6502 image, int lines, String error)
+		{
+			this.image = image;
+			this.lines = lines;
+			if (error == null) diagnostics = Collections.emptyList();
+			else diagnostics = Collections.singletonList(error);
+		}
+		public boolean isSuccess()
+		{
+			return image != null;
+		}
+		public Mem6502 getImage() //Null if assembly failed
+		{
+			return image;
+		}
+		public int getLines() //Source lines after preprocessing, zero if preprocessing failed
+		{
+			return lines;
+		}
+		public List<String> getDiagnostics()
+		{
+			return diagnostics;
+		}
+		public byte[] toByteArray(boolean cutnull) //Assembled bytes as main program writes them, empty if assembly failed
+		{
+			if (image == null) return new byte[0];
+			return image.toByteArray(cutnull ? image.firstNonZero() : 0, image.size());
+		}
+	}
+	private Assembler6502()
+	{
+	}
+	public static Result assemble(CharSequence source, Prep6502.IncludeResolver resolver) //Resolver may be null if source includes nothing
+	{
+		return assemble(source, resolver, null);
+	}
+	public static Result assemble(CharSequence source, Prep6502.IncludeResolver resolver, Prep6502.BinaryResolver binaries) //Binary resolver may be null if source uses no .INCBIN
+	{
+		try {
+			return assemble(Prep6502.preprocess(source, resolver), null, binaries);
+		} catch (IOException e) {
+			return new Result(null, 0, e.getMessage());
+		}
+	}
+	public static Result assembleFile(String filename, Cache6502 disk) //Assemble source file, included files are found as in main program. Cache may be null.
+	{
+		Prep6502 prepr = new Prep6502();
+		prepr.setCache(disk);
+		return assembleFile(filename, prepr);
+	}
+	public static Result assembleFile(String filename, Prep6502 prepr) //Same, reusing preprocessed files kept by prepr. Preprocessor must not be used by other threads meanwhile.
+	{
+		try {
+			return assemble(prepr.preprocess(filename), prepr.getCache(), Prep6502.FILES);
+		} catch (IOException e) {
+			return new Result(null, 0, e.getMessage());
+		}
+	}
+	private static Result assemble(Src6502 asmcode, Cache6502 disk, Prep6502.BinaryResolver binaries)
+	{
+		try {
+			Lex6502 lexer = new Lex6502(asmcode);
+			Tok6502 tokens = (disk != null) ? lexer.tokenizeUnits(disk) : lexer.tokenizeInput();
+			Parse6502 parser = new Parse6502(tokens);
+			parser.setBinaryResolver(binaries);
+			return new Result(parser.parseAndAssemble(), asmcode.size(), null);
+		} catch (LexerError e) {
+			return new Result(null, asmcode.size(), e.getMessage());
+		} catch (ParserError e) {
+			return new Result(null, asmcode.size(), e.getMessage());
+		}
+	}
+	public static Result assemble(CharSequence source)
+	{
+		return assemble(source, null);
+	}
+}
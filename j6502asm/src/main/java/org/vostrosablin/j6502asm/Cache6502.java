@@ -0,0 +1,243 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Persistent Cache (Cache6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Cache6502 { //Directory of preprocessed lines and token streams of single files, keyed by hash of file contents
+	private static final int SOURCE_MAGIC = 0x4A363553; //"J65S"
+	private static final int TOKENS_MAGIC = 0x4A363554; //"J65T"
+	private static final int VERSION = 3; //Bump when preprocessor, lexer or token kinds change
+	private File dir;
+	private AtomicInteger hits = new AtomicInteger(), misses = new AtomicInteger();
+	public Cache6502(File dir) throws IOException
+	{
+		if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Can't create cache directory " + dir + ". Aborted.");
+		this.dir = dir;
+	}
+	public static String hash(ByteBuffer content) //Hex SHA-256 of remaining bytes, buffer position is left as is
+	{
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e); //Every Java platform has SHA-256
+		}
+		md.update(content.duplicate());
+		byte[] d = md.digest();
+		char[] hex = new char[d.length * 2];
+		for (int i = 0; i < d.length; i++)
+		{
+			hex[i*2] = Character.forDigit((d[i] >> 4) & 0xF, 16);
+			hex[i*2+1] = Character.forDigit(d[i] & 0xF, 16);
+		}
+		return new String(hex);
+	}
+	public int getHits()
+	{
+		return hits.get();
+	}
+	public int getMisses()
+	{
+		return misses.get();
+	}
+	public void resetCounts()
+	{
+		hits.set(0);
+		misses.set(0);
+	}
+	private DataInputStream open(String hash, String ext, int magic) throws IOException //Entry stream past checked header, null if entry is absent
+	{
+		File f = new File(dir, hash + ext);
+		if (!f.isFile()) return null;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+		if ((in.readInt() != magic) || (in.readInt() != VERSION) || !in.readUTF().equals(hash)) //Stale format or damaged entry
+		{
+			in.close();
+			return null;
+		}
+		return in;
+	}
+	private DataOutputStream create(File tmp, String hash, int magic) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+		out.writeInt(magic);
+		out.writeInt(VERSION);
+		out.writeUTF(hash);
+		return out;
+	}
+	private void commit(File tmp, String hash, String ext) //Entry appears at once, so concurrent builds never read half of it
+	{
+		File f = new File(dir, hash + ext);
+		if (!tmp.renameTo(f))
+		{
+			f.delete();
+			if (!tmp.renameTo(f)) tmp.delete(); //Leave entry out, it is built again next time
+		}
+	}
+	public Src6502 loadSource(String hash) //Preprocessed lines of file, null on miss
+	{
+		try {
+			DataInputStream in = open(hash, ".src", SOURCE_MAGIC);
+			if (in == null)
+			{
+				misses.incrementAndGet();
+				return null;
+			}
+			try {
+				int lines = in.readInt(), includes = in.readInt(), chars = in.readInt();
+				int[] incAt = new int[includes];
+				String[] incName = new String[includes];
+				for (int k = 0; k < includes; k++)
+				{
+					incAt[k] = in.readInt();
+					incName[k] = in.readUTF();
+				}
+				char[] text = new char[chars];
+				for (int i = 0; i < chars; i++) text[i] = (char)in.readUnsignedByte(); //Preprocessed text is made of bytes
+				Src6502 unit = new Src6502();
+				int off = 0, k = 0;
+				for (int line = 0; line < lines; line++)
+				{
+					for (; (k < includes) && (incAt[k] == line); k++) unit.addInclude(incName[k]);
+					int len = in.readInt();
+					unit.add(text, off, len);
+					off += len;
+				}
+				for (; k < includes; k++) unit.addInclude(incName[k]);
+				unit.setHash(hash);
+				hits.incrementAndGet();
+				return unit;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) { //Damaged entry, file is processed again
+			misses.incrementAndGet();
+			return null;
+		}
+	}
+	public void storeSource(String hash, Src6502 unit) //Failure to store only costs a miss later
+	{
+		try {
+			File tmp = File.createTempFile(hash, ".tmp", dir);
+			DataOutputStream out = create(tmp, hash, SOURCE_MAGIC);
+			try {
+				int chars = 0;
+				for (int line = 0; line < unit.size(); line++) chars += unit.length(line);
+				out.writeInt(unit.size());
+				out.writeInt(unit.includes());
+				out.writeInt(chars);
+				for (int k = 0; k < unit.includes(); k++)
+				{
+					out.writeInt(unit.includeAt(k));
+					out.writeUTF(unit.includeName(k));
+				}
+				for (int line = 0; line < unit.size(); line++)
+				{
+					char[] buf = unit.buffer(line);
+					for (int i = unit.offset(line); i < unit.offset(line) + unit.length(line); i++) out.writeByte(buf[i]);
+				}
+				for (int line = 0; line < unit.size(); line++) out.writeInt(unit.length(line));
+			} finally {
+				out.close();
+			}
+			commit(tmp, hash, ".src");
+		} catch (IOException e) {
+		}
+	}
+	public Tok6502 loadTokens(String hash, Tok6502.Names names) //Token stream of file with names interned into given pool, null on miss
+	{
+		try {
+			DataInputStream in = open(hash, ".tok", TOKENS_MAGIC);
+			if (in == null)
+			{
+				misses.incrementAndGet();
+				return null;
+			}
+			try {
+				int[] map = new int[in.readInt()]; //Entry name index to id in pool
+				for (int i = 0; i < map.length; i++) map[i] = names.intern(in.readUTF());
+				int count = in.readInt();
+				Tok6502 tokens = new Tok6502(names);
+				for (int i = 0; i < count; i++)
+				{
+					int kind = in.readByte(), value = in.readInt(), line = in.readInt(), col = in.readInt();
+					if (Tok6502.isNamed(kind)) value = map[value];
+					tokens.add(kind, value, line, col);
+				}
+				hits.incrementAndGet();
+				return tokens;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			misses.incrementAndGet();
+			return null;
+		} catch (ArrayIndexOutOfBoundsException e) { //Damaged name index
+			misses.incrementAndGet();
+			return null;
+		}
+	}
+	public void storeTokens(String hash, Tok6502 tokens) //Only names used by stream are stored, pool may be shared with other files
+	{
+		try {
+			int[] index = new int[tokens.getNames().size()]; //Pool id to entry name index+1
+			int used = 0;
+			String[] order = new String[index.length];
+			for (int i = 0; i < tokens.size(); i++)
+			{
+				int k = tokens.kind(i);
+				if (Tok6502.isNamed(k) && (index[tokens.value(i)] == 0))
+				{
+					order[used] = tokens.name(i);
+					index[tokens.value(i)] = ++used;
+				}
+			}
+			File tmp = File.createTempFile(hash, ".tmp", dir);
+			DataOutputStream out = create(tmp, hash, TOKENS_MAGIC);
+			try {
+				out.writeInt(used);
+				for (int i = 0; i < used; i++) out.writeUTF(order[i]);
+				out.writeInt(tokens.size());
+				for (int i = 0; i < tokens.size(); i++)
+				{
+					int k = tokens.kind(i), v = tokens.value(i);
+					if (Tok6502.isNamed(k)) v = index[v] - 1;
+					out.writeByte(k);
+					out.writeInt(v);
+					out.writeInt(tokens.line(i));
+					out.writeInt(tokens.col(i));
+				}
+			} finally {
+				out.close();
+			}
+			commit(tmp, hash, ".tok");
+		} catch (IOException e) {
+		}
+	}
+}
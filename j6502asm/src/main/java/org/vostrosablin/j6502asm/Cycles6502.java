@@ -0,0 +1,105 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Static Cycle Analysis (Cycles6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class Cycles6502 { //Fewest and most cycles of every recorded instruction, decoded from final image, each executed once
+	private int[] min, max; //Per recorded instruction
+	private boolean[] cross; //Page crossing found: branch taken to other page, or indexed table straddling page boundary
+	private int[] bounds; //Sorted addresses of labels, each table ends where next label starts
+	public Cycles6502(Mem6502 bin, Parse6502 parser)
+	{
+		ArrayList<Parse6502.Label> defs = parser.getDefinitions();
+		bounds = new int[defs.size()];
+		for (int i = 0; i < bounds.length; i++) bounds[i] = defs.get(i).pc;
+		Arrays.sort(bounds);
+		int n = parser.instructions();
+		min = new int[n];
+		max = new int[n];
+		cross = new boolean[n];
+		for (int i = 0; i < n; i++)
+		{
+			int at = parser.instructionAt(i), end = parser.instructionEnd(i);
+			int c = Parse6502.cycles(bin.read(at));
+			if (((c & Parse6502.BRANCH) != 0) && (end - at > 2)) //Long branch: either skips its JMP or falls through to it
+			{
+				int skip = 3 + page(at + 2, end);
+				min[i] = Math.min(skip, 2 + 3);
+				max[i] = Math.max(skip, 2 + 3);
+				cross[i] = skip > 3;
+				continue;
+			}
+			for (int a = at; a < end; a += Parse6502.length(bin.read(a))) add(i, bin, a);
+		}
+	}
+	private void add(int i, Mem6502 bin, int a) //Cost of single instruction at a
+	{
+		int c = Parse6502.cycles(bin.read(a));
+		if (c < 0) return;
+		int base = c & 15;
+		min[i] += base;
+		max[i] += base;
+		if ((c & Parse6502.BRANCH) != 0)
+		{
+			int extra = 1 + page(a + 2, a + 2 + (byte)bin.read(a + 1));
+			max[i] += extra;
+			cross[i] |= extra > 1;
+		}
+		else if ((c & Parse6502.TABLE) != 0)
+		{
+			int v = bin.read(a + 1) | (bin.read(a + 2) << 8);
+			int k = Arrays.binarySearch(bounds, v + 1);
+			if (k < 0) k = -k - 1;
+			if (k == bounds.length) //Nothing bounds table, so any index may cross
+			{
+				if ((v & 0xFF) != 0) max[i]++;
+			}
+			else if (page(v, bounds[k] - 1) > 0)
+			{
+				max[i]++;
+				cross[i] = true;
+			}
+		}
+		else if ((c & Parse6502.PAGE) != 0) max[i]++; //Pointer isn't known before run
+	}
+	private static int page(int from, int to) //1 if addresses are on different pages
+	{
+		return ((from >> 8) != (to >> 8)) ? 1 : 0;
+	}
+	public int min(int from, int to) //Fewest cycles of recorded instructions [from, to)
+	{
+		int sum = 0;
+		for (int i = from; i < to; i++) sum += min[i];
+		return sum;
+	}
+	public int max(int from, int to) //Most cycles of recorded instructions [from, to), every branch taken and every page crossed
+	{
+		int sum = 0;
+		for (int i = from; i < to; i++) sum += max[i];
+		return sum;
+	}
+	public String text(int from, int to) //Fewest-most cycles, ! marks page crossing found
+	{
+		int lo = min(from, to), hi = max(from, to);
+		boolean found = false;
+		for (int i = from; i < to; i++) found |= cross[i];
+		String s = (lo == hi) ? Integer.toString(lo) : lo + "-" + hi;
+		return found ? s + "!" : s;
+	}
+}
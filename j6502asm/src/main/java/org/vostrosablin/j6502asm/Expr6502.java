@@ -0,0 +1,101 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Expressions (Expr6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+public class Expr6502 { //Operand expressions compiled to postfix code, kept in one arena of (op, arg) pairs
+	public interface Symbols { //Values of labels and constants
+		int value(int id); //Value of symbol with interned name id, Parse6502.UNRESOLVED while it isn't defined
+	}
+	//Postfix operations, arg is only used by NUM and SYM
+	public static final int NUM = 0, SYM = 1, NEG = 2, NOT = 3, LO = 4, HI = 5, ADD = 6, SUB = 7, MUL = 8, DIV = 9, AND = 10, OR = 11, XOR = 12;
+	private int[] code = new int[256];
+	private int size = 0;
+	private int[] stack = new int[16];
+	private int missing = -1; //Symbol that stopped last evaluation
+	public void add(int op, int arg)
+	{
+		if (size + 2 > code.length)
+		{
+			int[] nc = new int[code.length * 2];
+			System.arraycopy(code, 0, nc, 0, size);
+			code = nc;
+		}
+		code[size++] = op;
+		code[size++] = arg;
+	}
+	public int size() //End of code, start of next expression
+	{
+		return size;
+	}
+	public void truncate(int at) //Drop expressions from at on, once they are no longer needed
+	{
+		size = at;
+	}
+	public int missing() //Name id of undefined symbol last evaluate() met
+	{
+		return missing;
+	}
+	public int evaluate(int from, int to, Symbols symbols) //Value of code [from, to), or Parse6502.UNRESOLVED; throws ArithmeticException on division by zero
+	{
+		if ((to - from == 2) && (code[from] == NUM)) return code[from+1]; //Plain number or label, most operands
+		if ((to - from == 2) && (code[from] == SYM)) return symbol(code[from+1], symbols);
+		int sp = 0;
+		for (int i = from; i < to; i += 2)
+		{
+			int op = code[i];
+			if (sp + 1 > stack.length)
+			{
+				int[] ns = new int[stack.length * 2];
+				System.arraycopy(stack, 0, ns, 0, sp);
+				stack = ns;
+			}
+			switch (op)
+			{
+				case NUM: stack[sp++] = code[i+1]; break;
+				case SYM:
+					int v = symbol(code[i+1], symbols);
+					if (v == Parse6502.UNRESOLVED) return v;
+					stack[sp++] = v;
+					break;
+				case NEG: stack[sp-1] = -stack[sp-1]; break;
+				case NOT: stack[sp-1] = ~stack[sp-1]; break;
+				case LO: stack[sp-1] &= 0xFF; break;
+				case HI: stack[sp-1] = (stack[sp-1] >> 8) & 0xFF; break;
+				default: //Binary operation on two topmost values
+					int b = stack[--sp], a = stack[sp-1];
+					switch (op)
+					{
+						case ADD: a += b; break;
+						case SUB: a -= b; break;
+						case MUL: a *= b; break;
+						case DIV: a /= b; break;
+						case AND: a &= b; break;
+						case OR: a |= b; break;
+						default: a ^= b; break;
+					}
+					stack[sp-1] = a;
+			}
+		}
+		return stack[0];
+	}
+	private int symbol(int id, Symbols symbols)
+	{
+		int v = symbols.value(id);
+		if (v == Parse6502.UNRESOLVED) missing = id;
+		return v;
+	}
+}
@@ -0,0 +1,311 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Lexical Analyser (Lex6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class Lex6502 {
+	private static final String instr [] = {"ADC","AND","ASL","BCC","BCS","BEQ","BIT","BMI","BNE","BPL","BRK","BVC","BVS","CLC","CLD","CLI","CLV","CMP","CPX","CPY","DEC","DEX","DEY","EOR","INC","INX","INY","JMP","JSR","LDA","LDX","LDY","LSR","NOP","ORA","PHA","PHP","PLA","PLP","ROL","ROR","RTI","RTS","SBC","SEC","SED","SEI","STA","STX","STY","TAX","TAY","TSX","TXA","TXS","TYA"};
+	public static class LexerError extends Exception {
+		private static final long serialVersionUID = -5829011050395675884L;
+		LexerError(String message) {
+			super(message);
+		}
+	}
+
+	//Character classes
+	private static final int C_BAD = 0; //Not allowed anywhere outside of comments
+	private static final int C_SPACE = 1; //Whitespace and newline, separate tokens
+	private static final int C_PUNCT = 2; //Single-char tokens
+	private static final int C_DIGIT = 3; //0-9
+	private static final int C_HEX = 4; //A-F
+	private static final int C_LETTER = 5; //G-Z
+	private static final int C_PREFIX = 6; //% and $ number base prefixes
+	private static final int C_DOT = 7; //Starts directive
+	private static final int C_UNDER = 8; //Only valid inside identifier
+	private static final int C_QUOTE = 9; //Starts and ends string
+	private static final byte[] CLASS = new byte[128]; //ASCII character to class, everything above is C_BAD
+	private static final byte[] PUNCT = new byte[128]; //Token kind of C_PUNCT characters
+	private static final byte[] DIGIT = new byte[128]; //Digit value of 0-9A-F, -1 for others
+
+	//DFA states and actions
+	private static final int S_IDLE = 0; //Between tokens
+	private static final int S_NUM = 1; //Scanning number literal
+	private static final int S_ID = 2; //Scanning identifier
+	private static final int S_STR = 3; //Scanning string, anything goes until closing quote
+	private static final int A_EMIT = 4; //Emit single-char token, stay idle
+	private static final int A_END = 5; //Current char ends multichar token, rescan it when idle
+	private static final int A_ERR = 6; //Unexpected character
+	private static final int A_STR = 7; //Closing quote ends string
+	private static final byte[][] NEXT = { //State x character class
+		//BAD    SPACE   PUNCT   DIGIT   HEX     LETTER  PREFIX  DOT     UNDER   QUOTE
+		{ A_ERR,  S_IDLE, A_EMIT, S_NUM,  S_ID,   S_ID,   S_NUM,  S_ID,   A_ERR,  S_STR }, //S_IDLE
+		{ A_END,  A_END,  A_END,  S_NUM,  S_NUM,  A_END,  A_END,  A_END,  A_END,  A_END }, //S_NUM
+		{ A_END,  A_END,  A_END,  S_ID,   S_ID,   S_ID,   A_END,  A_END,  S_ID,   A_END }, //S_ID
+		{ S_STR,  S_STR,  S_STR,  S_STR,  S_STR,  S_STR,  S_STR,  S_STR,  S_STR,  A_STR }};//S_STR
+
+	//Perfect hash of three-letter mnemonics: letters packed to 15 bits, multiplied, top 7 bits select slot
+	private static final int MNEMONIC_MUL = 0x5D8CB093;
+	private static final byte[] MNEMONIC = new byte[128]; //Slot to instruction index+1, zero when empty
+
+	static
+	{
+		CLASS[' '] = CLASS['\t'] = CLASS['\n'] = C_SPACE;
+		CLASS['#'] = CLASS[','] = CLASS[':'] = CLASS['('] = CLASS[')'] = C_PUNCT;
+		PUNCT['#'] = Tok6502.IMMEDIATE;
+		PUNCT[','] = Tok6502.COMMA;
+		PUNCT[':'] = Tok6502.COLON;
+		PUNCT['('] = Tok6502.LPAREN;
+		PUNCT[')'] = Tok6502.RPAREN;
+		String arith = "+-*/&|^~<>=";
+		for (int i = 0; i < arith.length(); i++)
+		{
+			CLASS[arith.charAt(i)] = C_PUNCT;
+			PUNCT[arith.charAt(i)] = Tok6502.ARITH;
+		}
+		CLASS['%'] = CLASS['$'] = C_PREFIX;
+		CLASS['.'] = C_DOT;
+		CLASS['_'] = C_UNDER;
+		CLASS['"'] = C_QUOTE;
+		for (int c = 0; c < 128; c++) DIGIT[c] = -1;
+		for (char c = '0'; c <= '9'; c++) {CLASS[c] = C_DIGIT; DIGIT[c] = (byte)(c - '0');}
+		for (char c = 'A'; c <= 'F'; c++) {CLASS[c] = C_HEX; DIGIT[c] = (byte)(c - 'A' + 10);}
+		for (char c = 'G'; c <= 'Z'; c++) CLASS[c] = C_LETTER;
+		for (int i = 0; i < instr.length; i++)
+		{
+			MNEMONIC[mnemonicSlot(instr[i].charAt(0), instr[i].charAt(1), instr[i].charAt(2))] = (byte)(i + 1);
+		}
+	}
+	private static int mnemonicSlot(char a, char b, char c)
+	{
+		int key = ((a - 'A') << 10) | ((b - 'A') << 5) | (c - 'A');
+		return (key * MNEMONIC_MUL) >>> 25;
+	}
+
+	private static final int PARALLEL_CHUNK = 4096; //Minimal lines per parallel task
+	private Src6502 list = new Src6502();
+	public Lex6502 (Src6502 input)
+	{
+		list = input;
+	}
+	public Lex6502 () //Lexer fed line by line through tokenizeLine()
+	{
+	}
+	public static String getInstr(int index)
+	{
+		return instr[index];
+	}
+	private static int isInstr(char[] buf, int off, int len) //Instruction index of identifier, or -1
+	{
+		if (len != 3) return -1;
+		char a = buf[off], b = buf[off+1], c = buf[off+2];
+		if ((CLASS[a] != C_HEX) && (CLASS[a] != C_LETTER)) return -1; //Key packing assumes letters
+		if ((CLASS[b] != C_HEX) && (CLASS[b] != C_LETTER)) return -1;
+		if ((CLASS[c] != C_HEX) && (CLASS[c] != C_LETTER)) return -1;
+		int ins = MNEMONIC[mnemonicSlot(a, b, c)] - 1;
+		if (ins < 0) return -1;
+		String s = instr[ins];
+		if ((s.charAt(0) != a) || (s.charAt(1) != b) || (s.charAt(2) != c)) return -1; //Slot is shared with some non-mnemonic
+		return ins;
+	}
+	public Tok6502 tokenizeInput() throws LexerError
+	{
+		return tokenizeRange(0, list.size());
+	}
+	private Tok6502 tokenizeRange(int from, int to) throws LexerError //Lines [from, to) into stream with its own name pool
+	{
+		Tok6502 tokens = new Tok6502();
+		for (int i = from;i<to;i++)
+		{
+			tokenizeLine(list.buffer(i), list.offset(i), list.length(i), i, tokens);
+		}
+		return tokens;
+	}
+	public Tok6502 tokenizeInput(int threads) throws LexerError //Lex chunks of lines in parallel, result is the same as sequential
+	{
+		int lines = list.size();
+		int chunk = Math.max(PARALLEL_CHUNK, (lines + threads * 4 - 1) / (threads * 4)); //Few chunks per thread for balance
+		if ((threads <= 1) || (lines <= chunk)) return tokenizeInput();
+		ArrayList<Callable<Object>> tasks = new ArrayList<Callable<Object>>(0);
+		for (int i = 0; i < lines; i += chunk)
+		{
+			final int from = i, to = Math.min(lines, i + chunk);
+			tasks.add(new Callable<Object>() {
+				public Object call() //Tokens of chunk, or error that stopped it
+				{
+					try {
+						return tokenizeRange(from, to);
+					} catch (LexerError e) {
+						return e;
+					}
+				}
+			});
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			List<Future<Object>> parts = pool.invokeAll(tasks);
+			Tok6502 tokens = new Tok6502();
+			for (int i = 0; i < parts.size(); i++) //In line order, so first failed chunk holds first error of whole input
+			{
+				Object part = parts.get(i).get();
+				if (part instanceof LexerError) throw (LexerError)part;
+				tokens.append((Tok6502)part);
+			}
+			return tokens;
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LexerError("Lexical analysis interrupted. Aborted.");
+		} finally {
+			pool.shutdown();
+		}
+	}
+	public Tok6502 tokenizeUnit(Src6502 unit, Tok6502.Names names, Cache6502 cache) throws LexerError //Tokens of single preprocessed file, lines numbered within it
+	{
+		Tok6502 tokens = null;
+		boolean cached = (cache != null) && (unit.getHash() != null);
+		if (cached) tokens = cache.loadTokens(unit.getHash(), names);
+		if (tokens != null) return tokens;
+		tokens = new Tok6502(names);
+		for (int i = 0; i < unit.size(); i++) tokenizeLine(unit.buffer(i), unit.offset(i), unit.length(i), i, tokens);
+		if (cached) cache.storeTokens(unit.getHash(), tokens);
+		return tokens;
+	}
+	public Tok6502 tokenizeUnits(Cache6502 cache) throws LexerError //Lex every file of spliced input once, reusing cached streams, then splice tokens in source order
+	{
+		Tok6502 tokens = new Tok6502();
+		HashMap<Src6502,Tok6502> units = new HashMap<Src6502,Tok6502>(); //File included several times is lexed once
+		for (int k = 0; k < list.segments(); k++)
+		{
+			Src6502 unit = list.segmentUnit(k);
+			Tok6502 unittokens = units.get(unit);
+			if (unittokens == null)
+			{
+				try {
+					unittokens = tokenizeUnit(unit, tokens.getNames(), cache);
+				} catch (LexerError e) {
+					throw firstError(list, e);
+				}
+				units.put(unit, unittokens);
+			}
+			int from = list.segmentFrom(k);
+			tokens.appendLines(unittokens, from, from + list.segmentLength(k), list.segmentAt(k));
+		}
+		return tokens;
+	}
+	public static LexerError firstError(Src6502 input, LexerError e) //Error of file lexed on its own, reported as lexing whole spliced input reports it: first bad line, numbered within input
+	{
+		try {
+			new Lex6502(input).tokenizeInput();
+		} catch (LexerError first) {
+			return first;
+		}
+		return e;
+	}
+	public void tokenizeLine(char[] buf, int off, int len, int lineno, Tok6502 tokens) throws LexerError //Table-driven DFA lexer over buf[off, off+len)
+	{
+		int state = S_IDLE;
+		int start = 0; //Scan position where multichar token begins
+		int i = 0;
+		while (i <= len)
+		{
+			int cls;
+			char c = 0;
+			if (i == len) cls = C_SPACE; //End of line terminates pending token
+			else
+			{
+				c = buf[off+i];
+				cls = (c < 128) ? CLASS[c] : C_BAD;
+			}
+			int next = NEXT[state][cls];
+			switch (next)
+			{
+				case S_IDLE:
+					i++;
+					break;
+				case S_NUM:
+				case S_ID:
+				case S_STR:
+					if (state == S_IDLE) start = i;
+					state = next;
+					i++;
+					break;
+				case A_EMIT:
+					tokens.add(PUNCT[c],(PUNCT[c] == Tok6502.ARITH) ? c : 0,lineno,i);
+					i++;
+					break;
+				case A_END:
+					if (state == S_NUM) tokens.add(Tok6502.NUM,number(buf,off+start,i-start,lineno,i-1),lineno,start);
+					else identifier(buf,off+start,i-start,lineno,start,tokens);
+					state = S_IDLE; //Character at i is scanned again
+					break;
+				case A_STR:
+					tokens.add(Tok6502.STRING,tokens.getNames().intern(buf,off+start+1,i-start-1),lineno,start);
+					state = S_IDLE;
+					i++;
+					break;
+				default: //Otherwise, we met a character, that is not supported by J6502ASM, so we can't continue.
+					throw new LexerError("Unexpected character \"" + c + "\" encountered at line " + (lineno+1) + ", scan position " + i + ". Aborted.");
+			}
+		}
+		if (state == S_STR) throw new LexerError("Unterminated string at line " + (lineno+1) + ", scan position " + start + ". Aborted.");
+	}
+	private static int number(char[] buf, int off, int len, int lineno, int pos) throws LexerError //Evaluate number literal
+	{
+		int radix = 10;
+		int from = off;
+		if (len > 1)
+		{
+			if (buf[off] == '%') radix = 2;
+			else if (buf[off] == '$') radix = 16;
+			else if (buf[off] == '0') radix = 8;
+			if (radix != 10) from++;
+		}
+		long value = 0;
+		for (int i = from; i < off + len; i++)
+		{
+			int d = DIGIT[buf[i]]; //Number state only accepts ASCII, base prefix fails here too
+			if ((d < 0) || (d >= radix)) throw new LexerError("Invalid number literal at line " + (lineno+1) + ", scan position " + pos + ". Aborted.");
+			value = value * radix + d;
+			if (value > Integer.MAX_VALUE) throw new LexerError("Invalid number literal at line " + (lineno+1) + ", scan position " + pos + ". Aborted.");
+		}
+		return (int)value;
+	}
+	private static void identifier(char[] buf, int off, int len, int lineno, int col, Tok6502 tokens) //Classify and emit identifier
+	{
+		int ins = -1;
+		if (buf[off] == '.')
+		{
+			tokens.add(Tok6502.DIRECTIVE,tokens.getNames().intern(buf,off,len),lineno,col);
+		}
+		else if ((ins = isInstr(buf,off,len)) != -1)
+		{
+			tokens.add(Tok6502.OPERATOR,ins,lineno,col);
+		}
+		else
+		{
+			tokens.add(Tok6502.LABEL,tokens.getNames().intern(buf,off,len),lineno,col);
+		}
+	}
+}
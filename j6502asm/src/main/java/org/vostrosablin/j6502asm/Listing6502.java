@@ -0,0 +1,139 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembly Listing (Listing6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+public class Listing6502 { //Address, emitted bytes and source text of every line, from spans recorded by parser
+	private static final int ROW = 4; //Bytes on one listing row, longer lines continue on rows of their own
+	private static final int WIDTH = 6 + ROW * 3 + 1; //Address, two spaces, bytes with separators, gap before text
+	private static final int CYCLES = 9; //Column of cycle analysis, if parser made one: fewest-most cycles of line and gap
+	private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+	private char[] row = new char[WIDTH]; //Reused for every row
+	private int width = WIDTH; //Text starts here, after cycles column too if there is one
+	private Writer w;
+	private Mem6502 bin;
+	private Parse6502 parser;
+	private Cycles6502 cycles;
+	private int next = 0; //First recorded instruction not listed yet
+	public Listing6502(Writer w, Mem6502 bin) //Caller buffers and closes writer
+	{
+		this.w = w;
+		this.bin = bin;
+	}
+	public void write(Src6502 src, Parse6502 parser) throws IOException //Source may be null (streamed source isn't kept), then only lines that were parsed are listed
+	{
+		this.parser = parser;
+		cycles = parser.getCycles();
+		if (cycles != null)
+		{
+			width = WIDTH + CYCLES;
+			row = new char[width];
+		}
+		int k = 0, n = parser.spans();
+		if (src == null)
+		{
+			for (; k < n; k++) span(k, null, 0, 0);
+			totals();
+			return;
+		}
+		for (int i = 0; i < src.size(); i++)
+		{
+			while ((k < n) && (parser.spanLine(k) < i)) k++;
+			if ((k < n) && (parser.spanLine(k) == i)) span(k, src.buffer(i), src.offset(i), src.length(i));
+			else
+			{
+				if (src.length(i) > 0) //Empty lines stay empty
+				{
+					clear();
+					w.write(row, 0, width);
+				}
+				text(src.buffer(i), src.offset(i), src.length(i));
+			}
+		}
+		totals();
+	}
+	private void span(int k, char[] buf, int off, int len) throws IOException //First row holds cycles and text, rest of bytes follow on rows of their own
+	{
+		int addr = parser.spanAddr(k), end = parser.spanEnd(k);
+		String cost = null;
+		if (cycles != null)
+		{
+			int from = next;
+			while ((from < parser.instructions()) && (parser.instructionSpan(from) < k)) from++;
+			next = from;
+			while ((next < parser.instructions()) && (parser.instructionSpan(next) == k)) next++;
+			if (next > from) cost = cycles.text(from, next);
+		}
+		do
+		{
+			clear();
+			hex(0, addr, 4);
+			int used = 4;
+			for (int c = 0; (c < ROW) && (addr < end); c++, addr++)
+			{
+				hex(6 + c * 3, bin.read(addr), 2);
+				used = 8 + c * 3;
+			}
+			boolean more = (buf != null) && (len > 0);
+			if (cost != null) //Longer ones push text right rather than lose digits
+			{
+				w.write(row, 0, WIDTH);
+				w.write(cost);
+				for (int i = Math.max(1, CYCLES - cost.length()); more && (i > 0); i--) w.write(' ');
+				cost = null;
+			}
+			else w.write(row, 0, more ? width : used); //No trailing blanks without text
+			text(buf, off, len);
+			buf = null;
+		} while (addr < end);
+	}
+	private void totals() throws IOException //Cycles of code from each label up to next one
+	{
+		if (cycles == null) return;
+		ArrayList<Parse6502.Label> defs = parser.getDefinitions();
+		int pad = 0;
+		for (int j = 0; j < defs.size(); j++) pad = Math.max(pad, defs.get(j).name.length());
+		w.write("\nCycles per label:\n");
+		for (int j = 0; j < defs.size(); j++)
+		{
+			Parse6502.Label l = defs.get(j);
+			int to = (j + 1 < defs.size()) ? defs.get(j+1).code : parser.instructions();
+			if (to == l.code) continue; //Labels data or nothing
+			w.write(l.name);
+			for (int i = l.name.length(); i < pad + 2; i++) w.write(' ');
+			hex(0, l.pc, 4);
+			w.write(row, 0, 4);
+			w.write("  " + cycles.text(l.code, to) + "\n");
+		}
+	}
+	private void text(char[] buf, int off, int len) throws IOException
+	{
+		if (buf != null) w.write(buf, off, len);
+		w.write('\n');
+	}
+	private void clear()
+	{
+		for (int i = 0; i < width; i++) row[i] = ' ';
+	}
+	private void hex(int at, int value, int digits)
+	{
+		for (int i = digits - 1; i >= 0; i--, value >>= 4) row[at + i] = DIGITS[value & 0xF];
+	}
+}
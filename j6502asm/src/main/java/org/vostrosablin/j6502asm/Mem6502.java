@@ -0,0 +1,185 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Memory Image (Mem6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+public class Mem6502 { //64K address space, split into 256-byte pages allocated on first write
+	public static final int SIZE = 0x10000; //Addressable memory of 6502
+	private static final int PAGE = 0x100;
+	private byte[][] pages = new byte[SIZE / PAGE][]; //Page table, null means page was never written
+	private long[] written = new long[SIZE / 64]; //One bit per address that received a byte
+	private int top = 0; //End of image (one past highest written address or .ORG target)
+	public void write(int addr, int value) //Store single byte
+	{
+		byte[] page = pages[addr >> 8];
+		if (page == null) page = pages[addr >> 8] = new byte[PAGE];
+		page[addr & 0xFF] = (byte)value;
+		written[addr >> 6] |= 1L << (addr & 63);
+		if (addr >= top) top = addr + 1;
+	}
+	public void write(int addr, ByteBuffer src) //Store remaining bytes of buffer from addr on, a page at a time
+	{
+		int from = addr, end = addr + src.remaining();
+		while (addr < end)
+		{
+			byte[] page = pages[addr >> 8];
+			if (page == null) page = pages[addr >> 8] = new byte[PAGE];
+			int n = Math.min(PAGE - (addr & 0xFF), end - addr);
+			src.get(page, addr & 0xFF, n);
+			addr += n;
+		}
+		while (from < end) //Written bits a word at a time
+		{
+			int lo = from & 63, hi = Math.min(64, lo + end - from);
+			written[from >> 6] |= (-1L << lo) & ((hi == 64) ? -1L : ((1L << hi) - 1));
+			from += hi - lo;
+		}
+		if (end > top) top = end;
+	}
+	public int read(int addr) //Fetch single byte, unwritten memory reads as zero
+	{
+		byte[] page = pages[addr >> 8];
+		if (page == null) return 0;
+		return page[addr & 0xFF] & 0xFF;
+	}
+	public boolean isWritten(int addr)
+	{
+		return (written[addr >> 6] & (1L << (addr & 63))) != 0;
+	}
+	public void extend(int size) //Grow image end without writing anything (used by .ORG)
+	{
+		if (size > top) top = size;
+	}
+	public int size() //Length of flat image, starting at address zero
+	{
+		return top;
+	}
+	public int nextWritten(int addr) //First written address at or after addr, SIZE if there is none
+	{
+		if (addr >= SIZE) return SIZE;
+		int w = addr >> 6;
+		long bits = written[w] & (-1L << (addr & 63));
+		while (bits == 0)
+		{
+			if (++w == written.length) return SIZE;
+			bits = written[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(bits);
+	}
+	public int nextUnwritten(int addr) //First address at or after addr that wasn't written, SIZE if there is none
+	{
+		if (addr >= SIZE) return SIZE;
+		int w = addr >> 6;
+		long bits = ~written[w] & (-1L << (addr & 63));
+		while (bits == 0)
+		{
+			if (++w == written.length) return SIZE;
+			bits = ~written[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(bits);
+	}
+	public int[] segments() //Written address ranges as start, end pairs in address order
+	{
+		int[] seg = new int[8];
+		int n = 0;
+		for (int addr = nextWritten(0); addr < SIZE; addr = nextWritten(addr))
+		{
+			int end = nextUnwritten(addr);
+			if (n == seg.length)
+			{
+				int[] ns = new int[n * 2];
+				System.arraycopy(seg, 0, ns, 0, n);
+				seg = ns;
+			}
+			seg[n++] = addr;
+			seg[n++] = end;
+			addr = end;
+		}
+		int[] out = new int[n];
+		System.arraycopy(seg, 0, out, 0, n);
+		return out;
+	}
+	public int firstNonZero() //Address of first non-null byte, or size() if there is none
+	{
+		for (int p = 0; p < pages.length; p++)
+		{
+			if (pages[p] == null) continue; //Whole page reads as zero
+			for (int i = 0; i < PAGE; i++)
+			{
+				int addr = (p << 8) | i;
+				if (addr >= top) return top;
+				if (pages[p][i] != 0) return addr;
+			}
+		}
+		return top;
+	}
+	public byte[] toByteArray(int from, int to) //Copy address range [from, to) into a flat array
+	{
+		byte[] out = new byte[to - from];
+		int addr = from;
+		while (addr < to)
+		{
+			int len = Math.min(PAGE - (addr & 0xFF), to - addr);
+			byte[] page = pages[addr >> 8];
+			if (page != null) System.arraycopy(page, addr & 0xFF, out, addr - from, len);
+			addr += len;
+		}
+		return out;
+	}
+	public void writeTo(OutputStream os, int from, int to) throws IOException //Dump address range [from, to) page by page
+	{
+		byte[] zero = null;
+		int addr = from;
+		while (addr < to)
+		{
+			int len = Math.min(PAGE - (addr & 0xFF), to - addr);
+			byte[] page = pages[addr >> 8];
+			if (page == null)
+			{
+				if (zero == null) zero = new byte[PAGE];
+				page = zero;
+			}
+			os.write(page, addr & 0xFF, len);
+			addr += len;
+		}
+	}
+	public void writeTo(GatheringByteChannel ch, int from, int to) throws IOException //Dump address range [from, to) straight from pages, in a single gathering write
+	{
+		if (from >= to) return;
+		ByteBuffer[] parts = new ByteBuffer[((to - 1) >> 8) - (from >> 8) + 1];
+		byte[] zero = null;
+		int addr = from;
+		for (int i = 0; addr < to; i++)
+		{
+			int len = Math.min(PAGE - (addr & 0xFF), to - addr);
+			byte[] page = pages[addr >> 8];
+			if (page == null)
+			{
+				if (zero == null) zero = new byte[PAGE];
+				page = zero;
+			}
+			parts[i] = ByteBuffer.wrap(page, addr & 0xFF, len);
+			addr += len;
+		}
+		long left = to - from;
+		while (left > 0) left -= ch.write(parts);
+	}
+}
@@ -0,0 +1,146 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Output Formats (Out6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class Out6502 { //Writes memory image to file, either flat or as written address ranges only
+	public static final String BIN = "bin"; //Flat image from address zero (or first non-null byte) to end
+	public static final String HEX = "hex"; //Intel HEX records of written ranges
+	public static final String PRG = "prg"; //Load address, then image from lowest to highest written address
+	public static final String SEGMENTS = "segments"; //Raw file for each written range, named after its address
+	private static final String[] FORMATS = {BIN, HEX, PRG, SEGMENTS};
+	private static final int HEX_RECORD = 16; //Data bytes per Intel HEX record
+	private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+	public static boolean isFormat(String format)
+	{
+		for (int i = 0; i < FORMATS.length; i++)
+		{
+			if (FORMATS[i].equals(format)) return true;
+		}
+		return false;
+	}
+	public static String extension(String format) //Default file extension of format, segment files get their address added before it
+	{
+		if (format.equals(HEX) || format.equals(PRG)) return "." + format;
+		return ".bin";
+	}
+	public static long write(Mem6502 bin, File file, String format, boolean cutnull) throws IOException //Bytes of image written, cutnull only applies to flat image
+	{
+		if (format.equals(HEX)) return writeHex(bin, file);
+		if (format.equals(PRG)) return writePrg(bin, file);
+		if (format.equals(SEGMENTS)) return writeSegments(bin, file);
+		int first = cutnull ? bin.firstNonZero() : 0;
+		writeRange(bin, file, null, first, bin.size());
+		return bin.size() - first;
+	}
+	private static void writeRange(Mem6502 bin, File file, ByteBuffer header, int from, int to) throws IOException //Header if any, then range straight from image pages
+	{
+		FileOutputStream fos = new FileOutputStream(file);
+		try {
+			FileChannel ch = fos.getChannel();
+			if (header != null)
+			{
+				while (header.hasRemaining()) ch.write(header);
+			}
+			bin.writeTo(ch, from, to);
+		} finally {
+			fos.close();
+		}
+	}
+	private static long writePrg(Mem6502 bin, File file) throws IOException //Single load address, so gaps between ranges are filled with zeros
+	{
+		int[] seg = bin.segments();
+		int from = 0, to = 0;
+		if (seg.length > 0)
+		{
+			from = seg[0];
+			to = seg[seg.length - 1];
+		}
+		ByteBuffer header = ByteBuffer.allocate(2);
+		header.put((byte)(from & 0xFF)).put((byte)(from >> 8)).flip();
+		writeRange(bin, file, header, from, to);
+		return to - from;
+	}
+	private static long writeSegments(Mem6502 bin, File file) throws IOException //Files are named after output file, with start address added before extension
+	{
+		String name = file.getName(), ext = "";
+		int dot = name.lastIndexOf('.');
+		if (dot > 0)
+		{
+			ext = name.substring(dot);
+			name = name.substring(0, dot);
+		}
+		int[] seg = bin.segments();
+		long total = 0;
+		for (int i = 0; i < seg.length; i += 2)
+		{
+			StringBuilder sb = new StringBuilder(name).append('_');
+			hex(sb, seg[i], 4);
+			writeRange(bin, new File(file.getParentFile(), sb.append(ext).toString()), null, seg[i], seg[i+1]);
+			total += seg[i+1] - seg[i];
+		}
+		return total;
+	}
+	private static long writeHex(Mem6502 bin, File file) throws IOException //Data records never cross a written range, end of file record closes them
+	{
+		int[] seg = bin.segments();
+		long total = 0;
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < seg.length; i += 2)
+		{
+			for (int addr = seg[i]; addr < seg[i+1]; addr += HEX_RECORD)
+			{
+				int len = Math.min(HEX_RECORD, seg[i+1] - addr);
+				int sum = len + (addr >> 8) + (addr & 0xFF); //Record type 00 adds nothing
+				sb.append(':');
+				hex(sb, len, 2);
+				hex(sb, addr, 4);
+				sb.append("00");
+				for (int k = 0; k < len; k++)
+				{
+					int b = bin.read(addr + k);
+					sum += b;
+					hex(sb, b, 2);
+				}
+				hex(sb, (-sum) & 0xFF, 2);
+				sb.append("\r\n");
+			}
+			total += seg[i+1] - seg[i];
+		}
+		sb.append(":00000001FF\r\n");
+		byte[] text = new byte[sb.length()];
+		for (int i = 0; i < text.length; i++) text[i] = (byte)sb.charAt(i); //Plain ASCII
+		FileOutputStream fos = new FileOutputStream(file);
+		try {
+			FileChannel ch = fos.getChannel();
+			ByteBuffer buf = ByteBuffer.wrap(text);
+			while (buf.hasRemaining()) ch.write(buf);
+		} finally {
+			fos.close();
+		}
+		return total;
+	}
+	private static void hex(StringBuilder sb, int value, int digits)
+	{
+		for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) sb.append(DIGITS[(value >> shift) & 0xF]);
+	}
+}
@@ -0,0 +1,1421 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Parser & Assembler (Parse6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+public class Parse6502 {
+	public static class ParserError extends Exception {
+		private static final long serialVersionUID = -6662674447576552758L;
+		ParserError(String message) {
+			super(message);
+		}
+	}
+	public static class Label { //Label, also heads the chain of fixups waiting for its definition
+		public String name;
+		public int pc;
+		public boolean defined = false;
+		public Fixup first, last; //Pending fixups, in order of appearance
+		public int expr = -1, exprEnd, lineno, tc; //Expression of constant waiting for labels, source position of its definition
+		public int slot; //Slots before label in its .ORG region, 0 if there are none and its address is final
+		public int code; //Instructions recorded for cycle analysis before label was defined
+		public Label(String name)
+		{
+			this.name = name;
+		}
+		public void addFixup(Fixup fx)
+		{
+			if (last == null) first = fx;
+			else last.next = fx;
+			last = fx;
+		}
+	}
+	public static class Fixup { //Operand bytes to patch once label is defined
+		public String name; //Label fixup waits for, others in expression may be missing too
+		public int site, width, lineno, tc; //Address of operand, its size in bytes, source position
+		public int expr, exprEnd; //Postfix code of operand, evaluated once all labels are known
+		public int slot; //Slots before site, which move it when they widen
+		public boolean sized; //Width was chosen by .DB from value label had before relax(), final value must keep it
+		public Fixup next; //Next fixup for the same label
+		public Fixup(String name, int site, int width, int slot, int lineno, int tc, int expr, int exprEnd)
+		{
+			this.name = name;
+			this.expr = expr;
+			this.exprEnd = exprEnd;
+			this.site = site;
+			this.width = width;
+			this.slot = slot;
+			this.lineno = lineno;
+			this.tc = tc;
+		}
+	}
+	private static class Block { //Body of .MACRO or .REPT, recorded as tokens and replayed as a template
+		public String name; //Macro name, null for .REPT
+		public int count; //Repetitions of .REPT
+		public int line; //Source line where block starts, for diagnostics
+		public int[] params = new int[0]; //Parameter name ids of macro
+		public Tok6502 body; //Tokens of body lines, numbered from zero
+		public int lines = 0, nest = 0; //Body lines recorded so far, blocks opened inside body and not closed yet
+		public int[] slot; //Per body token: -1 copied as is, p >= 0 parameter p, -2-k local label k
+		public int[] locals; //Name ids of labels defined in body, renamed in every expansion
+	}
+	private static class Slot { //Instruction whose size waits for labels: zero page or absolute operand, short or long branch; also marks .ORG
+		public boolean org; //Marks .ORG, which starts new region, so growth before it moves nothing after it
+		public int opindex, mode; //Instruction and its short mode (zero page one or REL)
+		public int site, end; //Address of opcode as first emitted; for .ORG new origin and end of previous region
+		public int expr, exprEnd, lineno, tc; //Postfix code of operand, source position
+		public int grow = 0, value; //Bytes added to short form, operand value of last relax() pass
+		public byte[] bytes; //For .ORG: code of region it ends, if that may grow, saved before later regions overwrite any of it
+	}
+	public static final int UNRESOLVED = Integer.MIN_VALUE; //Returned for labels that are not defined yet
+	private static final int MAX_DEPTH = 64; //Nested expansions, stops macro that invokes itself
+	private static final String modes [] = {"IMMEDIATE","ZERO-PAGE","ZERO-PAGE X","ZERO-PAGE Y","IMPLIED","ABSOLUTE","ABSOLUTE X","ABSOLUTE Y","INDIRECT X","INDIRECT Y","ACCUMULATOR","RELATIVE","INDIRECT"};
+	//Mode indices, columns of opcodes table
+	private static final int IMM = 0, ZP = 1, ZPX = 2, ZPY = 3, IMP = 4, ABS = 5, ABSX = 6, ABSY = 7, INDX = 8, INDY = 9, ACC = 10, REL = 11, IND = 12;
+	private static final int[] operandSize = {1,1,1,1,0,2,2,2,1,1,0,1,2}; //Operand bytes for each mode
+	private static final int WIDE = ABS - ZP; //Adding it turns zero page mode into absolute one with same indexing
+	private static final int JMP = 0x4C, LONG = 3; //JMP absolute ends long branch, which is that many bytes longer than short one
+	private Tok6502 tokens; //Token stream
+	private Mem6502 bin = new Mem6502(); //Compiled code image
+	private int definedLabels = 0, resolvedFixups = 0; //Counts for statistics
+	private static final int[][] opcodes = new int[][]{ //Array of opcodes
+
+		//IMM   ZP  ZPX  ZPY  IMP  ABS ABSX ABSY INDX INDY  ACC  REL  IND
+
+		{0x69,0x65,0x75,  -1,  -1,0x6D,0x7D,0x79,0x61,0x71,  -1,  -1,  -1 }, //ADC
+		{0x29,0x25,0x35,  -1,  -1,0x2D,0x3D,0x39,0x21,0x31,  -1,  -1,  -1 }, //AND
+		{  -1,0x06,0x16,  -1,  -1,0x0E,0x1E,  -1,  -1,  -1,0x0A,  -1,  -1 }, //ASL
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,0x90,  -1 }, //BCC
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,0xB0,  -1 }, //BCS
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,0xF0,  -1 }, //BEQ
+		{  -1,0x24,  -1,  -1,  -1,0x2C,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //BIT
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,0x30,  -1 }, //BMI
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,0xD0,  -1 }, //BNE
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,0x10,  -1 }, //BPL
+		{  -1,  -1,  -1,  -1,0x00,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //BRK
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,0x50,  -1 }, //BVC
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,0x70,  -1 }, //BVS
+		{  -1,  -1,  -1,  -1,0x18,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CLC
+		{  -1,  -1,  -1,  -1,0xD8,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CLD
+		{  -1,  -1,  -1,  -1,0x58,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CLI
+		{  -1,  -1,  -1,  -1,0xB8,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CLV
+		{0xC9,0xC5,0xD5,  -1,  -1,0xCD,0xDD,0xD9,0xC1,0xD1,  -1,  -1,  -1 }, //CMP
+		{0xE0,0xE4,  -1,  -1,  -1,0xEC,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CPX
+		{0xC0,0xC4,  -1,  -1,  -1,0xCC,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CPY
+		{  -1,0xC6,0xD6,  -1,  -1,0xCE,0xDE,  -1,  -1,  -1,  -1,  -1,  -1 }, //DEC
+		{  -1,  -1,  -1,  -1,0xCA,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //DEX
+		{  -1,  -1,  -1,  -1,0x88,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //DEY
+		{0x49,0x45,0x55,  -1,  -1,0x4D,0x5D,0x59,0x41,0x51,  -1,  -1,  -1 }, //EOR
+		{  -1,0xE6,0xF6,  -1,  -1,0xEE,0xFE,  -1,  -1,  -1,  -1,  -1,  -1 }, //INC
+		{  -1,  -1,  -1,  -1,0xE8,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //INX
+		{  -1,  -1,  -1,  -1,0xC8,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //INY
+		{  -1,  -1,  -1,  -1,  -1,0x4C,  -1,  -1,  -1,  -1,  -1,  -1,0x6C }, //JMP
+		{  -1,  -1,  -1,  -1,  -1,0x20,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //JSR
+		{0xA9,0xA5,0xB5,  -1,  -1,0xAD,0xBD,0xB9,0xA1,0xB1,  -1,  -1,  -1 }, //LDA
+		{0xA2,0xA6,  -1,0xB6,  -1,0xAE,  -1,0xBE,  -1,  -1,  -1,  -1,  -1 }, //LDX
+		{0xA0,0xA4,0xB4,  -1,  -1,0xAC,0xBC,  -1,  -1,  -1,  -1,  -1,  -1 }, //LDY
+		{  -1,0x46,0x56,  -1,  -1,0x4E,0x5E,  -1,  -1,  -1,0x4A,  -1,  -1 }, //LSR
+		{  -1,  -1,  -1,  -1,0xEA,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //NOP
+		{0x09,0x05,0x15,  -1,  -1,0x0D,0x1D,0x19,0x01,0x11,  -1,  -1,  -1 }, //ORA
+		{  -1,  -1,  -1,  -1,0x48,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //PHA
+		{  -1,  -1,  -1,  -1,0x08,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //PHP
+		{  -1,  -1,  -1,  -1,0x68,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //PLA
+		{  -1,  -1,  -1,  -1,0x28,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //PLP
+		{  -1,0x26,0x36,  -1,  -1,0x2E,0x3E,  -1,  -1,  -1,0x2A,  -1,  -1 }, //ROL
+		{  -1,0x66,0x76,  -1,  -1,0x6E,0x7E,  -1,  -1,  -1,0x6A,  -1,  -1 }, //ROR
+		{  -1,  -1,  -1,  -1,0x40,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //RTI
+		{  -1,  -1,  -1,  -1,0x60,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //RTS
+		{0xE9,0xE5,0xF5,  -1,  -1,0xED,0xFD,0xF9,0xE1,0xF1,  -1,  -1,  -1 }, //SBC
+		{  -1,  -1,  -1,  -1,0x38,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //SEC
+		{  -1,  -1,  -1,  -1,0xF8,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //SED
+		{  -1,  -1,  -1,  -1,0x78,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //SEI
+		{  -1,0x85,0x95,  -1,  -1,0x8D,0x9D,0x99,0x81,0x91,  -1,  -1,  -1 }, //STA
+		{  -1,0x86,  -1,0x96,  -1,0x8E,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //STX
+		{  -1,0x84,0x94,  -1,  -1,0x8C,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //STY
+		{  -1,  -1,  -1,  -1,0xAA,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TAX
+		{  -1,  -1,  -1,  -1,0xA8,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TAY
+		{  -1,  -1,  -1,  -1,0xBA,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TSX
+		{  -1,  -1,  -1,  -1,0x8A,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TXA
+		{  -1,  -1,  -1,  -1,0x9A,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TXS
+		{  -1,  -1,  -1,  -1,0x98,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }};//TYA
+
+	//IMM   ZP  ZPX  ZPY  IMP  ABS ABSX ABSY INDX INDY  ACC  REL  IND		
+
+	public static final int PAGE = 0x10; //Flag of cycles(): one cycle more when indexed address crosses page
+	public static final int TABLE = 0x20; //Flag of cycles() along with PAGE: indexed base is operand itself, not pointer in zero page
+	public static final int BRANCH = 0x40; //Flag of cycles(): one cycle more when taken, another when taken to other page
+	private static final int P = PAGE; //Short name for table below
+	private static final int[][] cycles = new int[][]{ //Base cycles of each opcode, laid out like opcodes
+
+		//IMM   ZP  ZPX  ZPY  IMP  ABS ABSX ABSY INDX INDY  ACC  REL  IND
+
+		{   2,   3,   4,  -1,  -1,   4, 4+P, 4+P,   6, 5+P,  -1,  -1,  -1 }, //ADC
+		{   2,   3,   4,  -1,  -1,   4, 4+P, 4+P,   6, 5+P,  -1,  -1,  -1 }, //AND
+		{  -1,   5,   6,  -1,  -1,   6,   7,  -1,  -1,  -1,   2,  -1,  -1 }, //ASL
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,   2,  -1 }, //BCC
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,   2,  -1 }, //BCS
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,   2,  -1 }, //BEQ
+		{  -1,   3,  -1,  -1,  -1,   4,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //BIT
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,   2,  -1 }, //BMI
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,   2,  -1 }, //BNE
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,   2,  -1 }, //BPL
+		{  -1,  -1,  -1,  -1,   7,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //BRK
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,   2,  -1 }, //BVC
+		{  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1,   2,  -1 }, //BVS
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CLC
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CLD
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CLI
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CLV
+		{   2,   3,   4,  -1,  -1,   4, 4+P, 4+P,   6, 5+P,  -1,  -1,  -1 }, //CMP
+		{   2,   3,  -1,  -1,  -1,   4,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CPX
+		{   2,   3,  -1,  -1,  -1,   4,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //CPY
+		{  -1,   5,   6,  -1,  -1,   6,   7,  -1,  -1,  -1,  -1,  -1,  -1 }, //DEC
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //DEX
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //DEY
+		{   2,   3,   4,  -1,  -1,   4, 4+P, 4+P,   6, 5+P,  -1,  -1,  -1 }, //EOR
+		{  -1,   5,   6,  -1,  -1,   6,   7,  -1,  -1,  -1,  -1,  -1,  -1 }, //INC
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //INX
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //INY
+		{  -1,  -1,  -1,  -1,  -1,   3,  -1,  -1,  -1,  -1,  -1,  -1,   5 }, //JMP
+		{  -1,  -1,  -1,  -1,  -1,   6,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //JSR
+		{   2,   3,   4,  -1,  -1,   4, 4+P, 4+P,   6, 5+P,  -1,  -1,  -1 }, //LDA
+		{   2,   3,  -1,   4,  -1,   4,  -1, 4+P,  -1,  -1,  -1,  -1,  -1 }, //LDX
+		{   2,   3,   4,  -1,  -1,   4, 4+P,  -1,  -1,  -1,  -1,  -1,  -1 }, //LDY
+		{  -1,   5,   6,  -1,  -1,   6,   7,  -1,  -1,  -1,   2,  -1,  -1 }, //LSR
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //NOP
+		{   2,   3,   4,  -1,  -1,   4, 4+P, 4+P,   6, 5+P,  -1,  -1,  -1 }, //ORA
+		{  -1,  -1,  -1,  -1,   3,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //PHA
+		{  -1,  -1,  -1,  -1,   3,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //PHP
+		{  -1,  -1,  -1,  -1,   4,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //PLA
+		{  -1,  -1,  -1,  -1,   4,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //PLP
+		{  -1,   5,   6,  -1,  -1,   6,   7,  -1,  -1,  -1,   2,  -1,  -1 }, //ROL
+		{  -1,   5,   6,  -1,  -1,   6,   7,  -1,  -1,  -1,   2,  -1,  -1 }, //ROR
+		{  -1,  -1,  -1,  -1,   6,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //RTI
+		{  -1,  -1,  -1,  -1,   6,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //RTS
+		{   2,   3,   4,  -1,  -1,   4, 4+P, 4+P,   6, 5+P,  -1,  -1,  -1 }, //SBC
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //SEC
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //SED
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //SEI
+		{  -1,   3,   4,  -1,  -1,   4,   5,   5,   6,   6,  -1,  -1,  -1 }, //STA
+		{  -1,   3,  -1,   4,  -1,   4,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //STX
+		{  -1,   3,   4,  -1,  -1,   4,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //STY
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TAX
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TAY
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TSX
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TXA
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }, //TXS
+		{  -1,  -1,  -1,  -1,   2,  -1,  -1,  -1,  -1,  -1,  -1,  -1,  -1 }};//TYA
+
+	//IMM   ZP  ZPX  ZPY  IMP  ABS ABSX ABSY INDX INDY  ACC  REL  IND
+
+	private static final int[] decoded = new int[256]; //Opindex * 16 + mode of every opcode byte, -1 if it isn't defined
+	static
+	{
+		for (int i = 0; i < 256; i++) decoded[i] = -1;
+		for (int i = 0; i < opcodes.length; i++)
+		{
+			for (int m = 0; m < modes.length; m++)
+			{
+				if (opcodes[i][m] != -1) decoded[opcodes[i][m]] = i * 16 + m;
+			}
+		}
+	}
+	public static int cycles(int opcode) //Base cycles of opcode byte with PAGE, TABLE and BRANCH flags, -1 if opcode isn't defined
+	{
+		int d = decoded[opcode];
+		if (d < 0) return -1;
+		int mode = d & 15, c = cycles[d >> 4][mode];
+		if (mode == REL) c |= BRANCH;
+		if (((c & PAGE) != 0) && (mode != INDY)) c |= TABLE;
+		return c;
+	}
+	public static int length(int opcode) //Bytes of instruction starting with opcode byte, 1 if opcode isn't defined
+	{
+		int d = decoded[opcode];
+		return (d < 0) ? 1 : 1 + operandSize[d & 15];
+	}
+
+	private int pc, tc, lineno = 0; //Program counter, token counter (within line), parsing line
+	private int ls, le; //Token stream range of current line
+	private Sym6502 labels = new Sym6502(); //Encountered labels and their pending fixups
+	private Label[] byId = new Label[64]; //Labels by interned name id, saves hashing on every reference
+	private int opval, opexpr; //Operand of current instruction: value (or UNRESOLVED), start of its code in exprs
+	private boolean opsym; //Operand refers to labels, so branch takes it as target address rather than offset
+	private Expr6502 exprs = new Expr6502(); //Compiled operands, those of fixups are kept until finish()
+	private int exprSymbols; //Labels referred to by last compiled expression
+	private ArrayList<Label> constants = new ArrayList<Label>(0); //Constants whose expression waits for labels
+	private final Expr6502.Symbols symbols = new Expr6502.Symbols() {
+		public int value(int id)
+		{
+			Label l = label(id);
+			if (!l.defined) return UNRESOLVED;
+			if (l.slot == 0) return l.pc;
+			if (shift != null) return l.pc + shift[l.slot];
+			return provisional ? l.pc : UNRESOLVED; //Moves when slots before it widen, so known only once relax() sized them
+		}
+	};
+	private ArrayList<Slot> slots = new ArrayList<Slot>(0); //Sized by relax() once all labels are known, in program order
+	private int regionSlots = 0; //Slots since last .ORG, labels defined after any of them may still move
+	private int regionOrigin = 0; //Address last .ORG set
+	private int[] shift; //Bytes code after first n slots moved by, indexed by n, set by relax()
+	private boolean provisional = false; //Labels that may move evaluate to address they have before relax()
+	private Prep6502.BinaryResolver binaries = Prep6502.FILES; //Source of .INCBIN data, null forbids the directive
+	private ArrayList<String> binaryFiles = new ArrayList<String>(0); //Names of files .INCBIN asked for, in order of appearance
+	private Block recording; //Block whose body is being recorded, lines go to it instead of being parsed
+	private Block[] macros = new Block[64]; //Defined macros by interned name id
+	private Tok6502[] scratch = new Tok6502[4]; //Expansion stream of each nesting depth, reused
+	private int[] argAt = new int[16]; //Token index where each macro argument starts, then end of last one
+	private int depth = 0, expansions = 0; //Current nesting of expansions, expansions so far (numbers local labels)
+	private boolean listing = false; //Record address span of every line
+	private int[] spanLine, spanAddr, spanEnd; //Parsed line, its address and end of bytes it emitted, in line order
+	private boolean cycleAnalysis = false; //Record every instruction for cycle analysis, not only those of .CYCLES blocks
+	private static final int CODE = 5; //Ints per recorded instruction: address, end, slots before each of them, listing span
+	private int[] code; //Recorded instructions in program order, CODE ints each
+	private int codes = 0;
+	private static final int BUDGET = 6; //Ints per .CYCLES block
+	private int[] budgets = new int[0]; //.CYCLES blocks as first instruction, end instruction (-1 while open), budget (UNRESOLVED until finish()), line, code of budget
+	private int blocks = 0, openBlocks = 0;
+	private ArrayList<Label> definitions = new ArrayList<Label>(); //Address labels in order of definition, they also bound tables
+	private Cycles6502 costs; //Cycle analysis of recorded instructions, made by finish()
+	private int[] spanFirst, spanLast; //Slots before address and end of span, which move them
+	private int spans = 0, spanFrom, spanSlot; //Span count, address of first byte emitted by current line (-1 if none yet), slots before it
+	public Parse6502 (Tok6502 tokens) //We accept token stream from lexer
+	{
+		this.tokens = tokens;
+	}
+	public Parse6502 () //Parser fed through parse() and finish()
+	{
+	}
+	private int value(int t) //Value of token t of current line
+	{
+		return tokens.value(ls+t);
+	}
+	private String found() //Describe current token for diagnostics
+	{
+		if (ls+tc >= le) return "\"end of line (EOL)\"";
+		return "\"" + tokens.text(ls+tc) + " (" + Tok6502.KINDS[tokens.kind(ls+tc)] + ")\"";
+	}
+	private boolean acceptToken(int kind)
+	{
+		if (ls+tc >= le) return kind == Tok6502.EOL;
+		if (tokens.kind(ls+tc) == kind)
+		{	
+			tc += 1;
+			return true;
+		}
+		return false;
+	}
+	private boolean expectToken(int kind) throws ParserError
+	{
+		if (acceptToken(kind)) return true;
+		throw new ParserError("Expected " + Tok6502.KINDS[kind] + ", but " + found() + " found at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+	}
+	private boolean acceptToken(int kind, int value) //Match LABEL or DIRECTIVE token by its interned name id
+	{
+		if (ls+tc >= le) return false;
+		if ((tokens.kind(ls+tc) == kind) && (tokens.value(ls+tc) == value))
+		{	
+			tc += 1;
+			return true;
+		}
+		return false;
+	}
+	private boolean expectToken(int kind, int value) throws ParserError
+	{
+		if (acceptToken(kind,value)) return true;
+		throw new ParserError("Expected \"" + tokens.getNames().get(value) + " (" + Tok6502.KINDS[kind] + ")\", but " + found() + " found at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+	}
+	private boolean unexpectedToken() throws ParserError
+	{
+		throw new ParserError("Unexpected token " + found() + " found at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+	}
+	private void emit(int value) throws ParserError //Write single byte at program counter
+	{
+		if (pc >= Mem6502.SIZE) throw new ParserError("Program counter exceeds $FFFF at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		if (spanFrom < 0)
+		{
+			spanFrom = pc;
+			spanSlot = slots.size();
+		}
+		bin.write(pc, value);
+		pc++;
+	}
+	private void emitWord(int value) throws ParserError //Write little-endian word at program counter
+	{
+		emit(value & 0xFF);
+		emit((value >> 8) & 0xFF);
+	}
+	public static boolean isRelative(int opindex)
+	{
+		if (opcodes[opindex][REL] != -1) return true;
+		else return false;
+	}
+	public Mem6502 parseAndAssemble() throws ParserError //Main method here
+	{
+		parse(tokens);
+		return finish();
+	}
+	public void parse(Tok6502 tokens) throws ParserError //Parse and assemble whole lines of stream, may be called repeatedly
+	{
+		this.tokens = tokens; //Successive streams must share one name pool, labels are cached by name id
+		parseLines(0, tokens.size());
+	}
+	private void parseLines(int from, int to) throws ParserError //Tokens come grouped by line, empty lines have none
+	{
+		le = from;
+		while (le < to)
+		{
+			ls = le;
+			int line = tokens.line(ls);
+			while ((le < to) && (tokens.line(le) == line)) le++;
+			if (depth == 0) //Expanded lines report line of source they came from
+			{
+				lineno = line;
+				spanFrom = -1;
+			}
+			boolean recorded = recording != null;
+			if (recorded) record();
+			else parseLine();
+			if (listing && (depth == 0) && (!recorded || (recording == null))) addSpan(); //Body lines emit nothing until block is closed
+		}
+	}
+	public Mem6502 finish() throws ParserError //Resolve forward references once all source was parsed
+	{
+		if (recording != null) throw new ParserError("Missing " + ((recording.name != null) ? ".ENDM for macro " + recording.name : ".ENDR for .REPT") + " started at line " + (recording.line+1) + ". Aborted.");
+		for (int b = blocks - 1; openBlocks > 0; b--) //Innermost open block is reported
+		{
+			if (budgets[b*BUDGET+1] < 0) throw new ParserError("Missing .ENDC for .CYCLES started at line " + (budgets[b*BUDGET+3]+1) + ". Aborted.");
+		}
+		relax();
+		place();
+		definedLabels += constants.size();
+		applyFixups();
+		if (cycleAnalysis || (blocks > 0))
+		{
+			costs = new Cycles6502(bin, this);
+			for (int b = 0; b < blocks * BUDGET; b += BUDGET)
+			{
+				if (budgets[b+2] == UNRESOLVED)
+				{
+					budgets[b+2] = evaluate(budgets[b+4], budgets[b+5], budgets[b+3], 0);
+					if (budgets[b+2] < 0) throw new ParserError("Cycle budget can't be negative at line " + (budgets[b+3]+1) + ". Aborted.");
+				}
+				int max = costs.max(budgets[b], budgets[b+1]);
+				if (max > budgets[b+2]) throw new ParserError("Block started at line " + (budgets[b+3]+1) + " takes up to " + max + " cycles, over its budget of " + budgets[b+2] + ". Aborted.");
+			}
+		}
+		return bin;
+	}
+	private void parseLine() throws ParserError //Parse single line from source
+	{
+		tc = 0;
+		while (ls+tc < le)
+		{
+			if ((acceptToken(Tok6502.LABEL)))
+			{
+				Block m = (value(tc-1) < macros.length) ? macros[value(tc-1)] : null;
+				if ((m != null) && ((ls+tc >= le) || ((tokens.kind(ls+tc) != Tok6502.COLON) && !isArith('='))))
+				{
+					invoke(m);
+					continue;
+				}
+				if (tc != 1) throw new ParserError("Label can be defined only in beginning of line");
+				if (acceptArith('='))
+				{
+					constantDef();
+					expectToken(Tok6502.EOL);
+					continue;
+				}
+				expectToken(Tok6502.COLON);
+				labelDef();
+				acceptToken(Tok6502.EOL);
+			}
+			else if ((acceptToken(Tok6502.DIRECTIVE)))
+			{
+				tc -= 1;
+				directive();
+				expectToken(Tok6502.EOL);
+			}
+			else if (acceptToken(Tok6502.OPERATOR))
+			{
+				operator();
+				expectToken(Tok6502.EOL);
+			}
+			else unexpectedToken();
+		}
+	}
+	private int blockDirective(int from, int to) //Name id of directive starting line, possibly after label definition, -1 if there is none
+	{
+		if ((to - from >= 3) && (tokens.kind(from) == Tok6502.LABEL) && (tokens.kind(from+1) == Tok6502.COLON)) from += 2;
+		if ((from < to) && (tokens.kind(from) == Tok6502.DIRECTIVE)) return tokens.value(from);
+		return -1;
+	}
+	private void record() throws ParserError //Add line to body of open block, or close block with it
+	{
+		Block b = recording;
+		int d = blockDirective(ls, le);
+		if ((d == Tok6502.MACRO) || (d == Tok6502.REPT)) b.nest++;
+		else if (((d == Tok6502.ENDM) || (d == Tok6502.ENDR)) && (b.nest > 0)) b.nest--;
+		else if ((d == Tok6502.ENDM) || (d == Tok6502.ENDR))
+		{
+			tc = 0;
+			expectToken(Tok6502.DIRECTIVE, (b.name != null) ? Tok6502.ENDM : Tok6502.ENDR);
+			expectToken(Tok6502.EOL);
+			recording = null;
+			compile(b);
+			if (b.name == null)
+			{
+				for (int i = 0; i < b.count; i++) expand(b, 0);
+			}
+			return;
+		}
+		for (int i = ls; i < le; i++) b.body.add(tokens.kind(i), tokens.value(i), b.lines, tokens.col(i));
+		b.lines++;
+	}
+	private void compile(Block b) //Find parameters and local labels and constants in body once, so expansion only copies
+	{
+		Tok6502 t = b.body;
+		int n = t.size(), locals = 0;
+		b.slot = new int[n];
+		b.locals = new int[8];
+		for (int i = 0; i + 1 < n; i++) //Local labels first, they may be referenced before definition
+		{
+			boolean def = (t.kind(i+1) == Tok6502.COLON) || ((t.kind(i+1) == Tok6502.ARITH) && (t.value(i+1) == '=') && ((i == 0) || (t.line(i-1) != t.line(i)))); //Label or constant
+			if ((t.kind(i) == Tok6502.LABEL) && def && (param(b, t.value(i)) < 0) && (local(b, locals, t.value(i)) < 0))
+			{
+				if (locals == b.locals.length)
+				{
+					int[] nl = new int[locals * 2];
+					System.arraycopy(b.locals, 0, nl, 0, locals);
+					b.locals = nl;
+				}
+				b.locals[locals++] = t.value(i);
+			}
+		}
+		int[] nl = new int[locals];
+		System.arraycopy(b.locals, 0, nl, 0, locals);
+		b.locals = nl;
+		for (int i = 0; i < n; i++)
+		{
+			b.slot[i] = -1;
+			if (t.kind(i) != Tok6502.LABEL) continue;
+			int p = param(b, t.value(i));
+			if (p >= 0) b.slot[i] = p;
+			else if ((p = local(b, locals, t.value(i))) >= 0) b.slot[i] = -2 - p;
+		}
+	}
+	private static int param(Block b, int id)
+	{
+		for (int i = 0; i < b.params.length; i++)
+		{
+			if (b.params[i] == id) return i;
+		}
+		return -1;
+	}
+	private static int local(Block b, int count, int id)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			if (b.locals[i] == id) return i;
+		}
+		return -1;
+	}
+	private boolean indexSuffix(int i) //Comma at i starts ,X or ,Y that ends argument, so it belongs to that argument
+	{
+		if ((i + 1 >= le) || (tokens.kind(i+1) != Tok6502.LABEL) || ((tokens.value(i+1) != Tok6502.X) && (tokens.value(i+1) != Tok6502.Y))) return false;
+		return (i + 2 >= le) || (tokens.kind(i+2) == Tok6502.COMMA);
+	}
+	private void invoke(Block m) throws ParserError //Split arguments of macro call at top-level commas, then expand it
+	{
+		int args = 0, nesting = 0;
+		if (ls+tc < le)
+		{
+			argAt[args++] = ls+tc;
+			for (int i = ls+tc; i < le; i++)
+			{
+				int k = tokens.kind(i);
+				if (k == Tok6502.LPAREN) nesting++;
+				else if (k == Tok6502.RPAREN) nesting--;
+				else if ((k == Tok6502.COMMA) && (nesting == 0) && !indexSuffix(i))
+				{
+					if (args + 1 >= argAt.length)
+					{
+						int[] na = new int[argAt.length * 2];
+						System.arraycopy(argAt, 0, na, 0, args);
+						argAt = na;
+					}
+					argAt[args++] = i + 1;
+				}
+			}
+		}
+		argAt[args] = le + 1; //Every argument ends one token before next one starts
+		if (args != m.params.length) throw new ParserError("Macro " + m.name + " expects " + m.params.length + " arguments, but " + args + " found at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		tc = le - ls;
+		expand(m, args);
+	}
+	private void expand(Block b, int args) throws ParserError //Copy body with arguments and fresh local labels substituted, then parse the copy
+	{
+		if (depth == MAX_DEPTH) throw new ParserError("Expansion of " + ((b.name != null) ? "macro " + b.name : ".REPT") + " is nested too deep at line " + (lineno+1) + ". Aborted.");
+		if (depth == scratch.length)
+		{
+			Tok6502[] ns = new Tok6502[depth * 2];
+			System.arraycopy(scratch, 0, ns, 0, depth);
+			scratch = ns;
+		}
+		Tok6502 x = scratch[depth];
+		if ((x == null) || (x.getNames() != tokens.getNames())) x = scratch[depth] = new Tok6502(tokens.getNames());
+		x.clear();
+		Tok6502 t = b.body;
+		Tok6502.Names names = tokens.getNames();
+		int[] ids = new int[b.locals.length];
+		expansions++;
+		for (int k = 0; k < ids.length; k++) ids[k] = names.intern(names.get(b.locals[k]) + "@" + expansions); //Can't clash with source, lexer never yields @
+		for (int i = 0; i < t.size(); i++)
+		{
+			int s = b.slot[i];
+			if (s == -1) x.add(t.kind(i), t.value(i), t.line(i), t.col(i));
+			else if (s >= 0)
+			{
+				for (int a = argAt[s]; a < argAt[s+1] - 1; a++) x.add(tokens.kind(a), tokens.value(a), t.line(i), t.col(i));
+			}
+			else x.add(Tok6502.LABEL, ids[-2 - s], t.line(i), t.col(i));
+		}
+		Tok6502 saved = tokens;
+		int sls = ls, sle = le, stc = tc;
+		tokens = x;
+		depth++;
+		try {
+			parseLines(0, x.size());
+			if (recording != null) throw new ParserError("Missing " + ((recording.name != null) ? ".ENDM for macro " + recording.name : ".ENDR for .REPT") + " inside expansion at line " + (lineno+1) + ". Aborted.");
+		} finally {
+			depth--;
+			tokens = saved;
+			ls = sls;
+			le = sle;
+			tc = stc;
+		}
+	}
+	private void addSpan() //Line without bytes gets program counter it ended with, which is where .ORG moved it
+	{
+		if (spanLine == null)
+		{
+			spanLine = new int[256];
+			spanAddr = new int[256];
+			spanEnd = new int[256];
+			spanFirst = new int[256];
+			spanLast = new int[256];
+		}
+		else if (spans == spanLine.length)
+		{
+			int[] nl = new int[spans * 2], na = new int[spans * 2], ne = new int[spans * 2], nf = new int[spans * 2], nt = new int[spans * 2];
+			System.arraycopy(spanLine, 0, nl, 0, spans);
+			System.arraycopy(spanAddr, 0, na, 0, spans);
+			System.arraycopy(spanEnd, 0, ne, 0, spans);
+			System.arraycopy(spanFirst, 0, nf, 0, spans);
+			System.arraycopy(spanLast, 0, nt, 0, spans);
+			spanLine = nl;
+			spanAddr = na;
+			spanEnd = ne;
+			spanFirst = nf;
+			spanLast = nt;
+		}
+		spanLine[spans] = lineno;
+		spanAddr[spans] = (spanFrom < 0) ? pc : spanFrom;
+		spanEnd[spans] = (spanFrom < 0) ? spanAddr[spans] : pc;
+		spanLast[spans] = slots.size();
+		spanFirst[spans] = (spanFrom < 0) ? spanLast[spans] : spanSlot;
+		spans++;
+	}
+	public void setBinaryResolver(Prep6502.BinaryResolver binaries)
+	{
+		this.binaries = binaries;
+	}
+	public ArrayList<String> getBinaryFiles() //Even if assembly failed, so missing file is known too
+	{
+		return binaryFiles;
+	}
+	public void setListing(boolean listing) //Record which addresses each line emitted, must be set before parsing
+	{
+		this.listing = listing;
+	}
+	public int spans() //Lines recorded for listing
+	{
+		return spans;
+	}
+	public int spanLine(int k)
+	{
+		return spanLine[k];
+	}
+	public int spanAddr(int k)
+	{
+		return spanAddr[k];
+	}
+	public int spanEnd(int k) //One past last byte emitted by line, equals spanAddr(k) if it emitted none
+	{
+		return spanEnd[k];
+	}
+	private Label label(int id) //Symbol table entry for interned name id
+	{
+		if (id >= byId.length)
+		{
+			Label[] nb = new Label[Math.max(byId.length * 2, id + 1)];
+			System.arraycopy(byId, 0, nb, 0, byId.length);
+			byId = nb;
+		}
+		if (byId[id] == null) byId[id] = labels.get(tokens.getNames().get(id));
+		return byId[id];
+	}
+	private void labelDef() throws ParserError //Parse label definition
+	{
+		Label l = label(value(tc-2));
+		if (l.defined || (l.expr >= 0)) throw new ParserError("Duplicate label \"" + l.name + "\" encountered at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		l.pc = pc;
+		l.slot = (regionSlots > 0) ? slots.size() : 0;
+		l.code = codes;
+		definitions.add(l);
+		l.defined = true;
+		definedLabels++;
+	}
+	public void setCycles(boolean cycles) //Analyse cycles of every instruction for listing, must be set before parsing
+	{
+		this.cycleAnalysis = cycles;
+	}
+	public Cycles6502 getCycles() //Analysis made by finish() if it was set, null otherwise
+	{
+		return cycleAnalysis ? costs : null;
+	}
+	public int instructions() //Instructions recorded for cycle analysis
+	{
+		return codes;
+	}
+	public int instructionAt(int i)
+	{
+		return code[i * CODE];
+	}
+	public int instructionEnd(int i) //Long branch ends after its JMP
+	{
+		return code[i * CODE + 1];
+	}
+	public int instructionSpan(int i) //Listing span of line instruction belongs to
+	{
+		return code[i * CODE + 4];
+	}
+	public ArrayList<Label> getDefinitions() //Address labels in order of definition, code field tells instructions recorded before each
+	{
+		return definitions;
+	}
+	public Sym6502 getLabels()
+	{
+		return labels;
+	}
+	public int getDefinedLabels()
+	{
+		return definedLabels;
+	}
+	public int getResolvedFixups() //Forward references patched by finish()
+	{
+		return resolvedFixups;
+	}
+	private boolean isArith(int c) //Current token is given expression operator
+	{
+		return (ls+tc < le) && (tokens.kind(ls+tc) == Tok6502.ARITH) && (tokens.value(ls+tc) == c);
+	}
+	private boolean acceptArith(int c)
+	{
+		if (!isArith(c)) return false;
+		tc += 1;
+		return true;
+	}
+	private int expression() throws ParserError //Compile expression at current token, returns start of its code; < and > select byte of whole expression
+	{
+		int start = exprs.size();
+		exprSymbols = 0;
+		if ((ls+tc+1 >= le) || (tokens.kind(ls+tc+1) != Tok6502.ARITH)) //Lone number or label, most operands are
+		{
+			if (acceptToken(Tok6502.NUM))
+			{
+				exprs.add(Expr6502.NUM, value(tc-1));
+				return start;
+			}
+			if (acceptToken(Tok6502.LABEL))
+			{
+				label(value(tc-1));
+				exprs.add(Expr6502.SYM, value(tc-1));
+				exprSymbols = 1;
+				return start;
+			}
+		}
+		if (acceptArith('<'))
+		{
+			binary(0);
+			exprs.add(Expr6502.LO, 0);
+		}
+		else if (acceptArith('>'))
+		{
+			binary(0);
+			exprs.add(Expr6502.HI, 0);
+		}
+		else binary(0);
+		return start;
+	}
+	private static final String BINARY = "|^&+-*/"; //Binary operators, each precedence level holds one or two of them
+	private static final int[] LEVEL = {0,1,2,3,3,4,4};
+	private static final int[] BINOP = {Expr6502.OR,Expr6502.XOR,Expr6502.AND,Expr6502.ADD,Expr6502.SUB,Expr6502.MUL,Expr6502.DIV};
+	private void binary(int level) throws ParserError //Operators of given precedence level and above, left to right
+	{
+		if (level > 4)
+		{
+			unary();
+			return;
+		}
+		binary(level + 1);
+		while ((ls+tc < le) && (tokens.kind(ls+tc) == Tok6502.ARITH))
+		{
+			int op = BINARY.indexOf(tokens.value(ls+tc));
+			if ((op < 0) || (LEVEL[op] != level)) return;
+			tc += 1;
+			binary(level + 1);
+			exprs.add(BINOP[op], 0);
+		}
+	}
+	private void unary() throws ParserError
+	{
+		if (acceptArith('-'))
+		{
+			unary();
+			exprs.add(Expr6502.NEG, 0);
+		}
+		else if (acceptArith('~'))
+		{
+			unary();
+			exprs.add(Expr6502.NOT, 0);
+		}
+		else if (acceptToken(Tok6502.NUM)) exprs.add(Expr6502.NUM, value(tc-1));
+		else if (acceptToken(Tok6502.LABEL))
+		{
+			label(value(tc-1)); //Known to symbol table from first reference, like labels of fixups
+			exprs.add(Expr6502.SYM, value(tc-1));
+			exprSymbols++;
+		}
+		else if (acceptToken(Tok6502.LPAREN))
+		{
+			int symbols = exprSymbols;
+			expression();
+			exprSymbols += symbols;
+			expectToken(Tok6502.RPAREN);
+		}
+		else unexpectedToken();
+	}
+	private int evaluate(int from, int to, int lineno, int tc) throws ParserError //Value of compiled expression, or UNRESOLVED
+	{
+		try {
+			return exprs.evaluate(from, to, symbols);
+		} catch (ArithmeticException e) {
+			throw new ParserError("Division by zero at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		}
+	}
+	private int constant() throws ParserError //Expression that must be known where it is written
+	{
+		int start = expression();
+		int v = evaluate(start, exprs.size(), lineno, tc);
+		if (v == UNRESOLVED)
+		{
+			Label l = label(exprs.missing());
+			if (l.defined) throw new ParserError("Address of label \"" + l.name + "\" depends on size of instruction at line " + (slots.get(l.slot-1).lineno+1) + ", so it can't be used at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+			throw new ParserError("Label \"" + l.name + "\" must be defined before use at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		}
+		exprs.truncate(start);
+		return v;
+	}
+	private int provisional(int start) throws ParserError //Value of expression with labels that may move taken where they are before relax(), others must be defined
+	{
+		provisional = true;
+		int v;
+		try {
+			v = evaluate(start, exprs.size(), lineno, tc);
+		} finally {
+			provisional = false;
+		}
+		if (v == UNRESOLVED) throw new ParserError("Label \"" + label(exprs.missing()).name + "\" must be defined before use at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		return v;
+	}
+	private void fixup(int expr, int site, int width) //Patch expression from expr to end of code in once its labels are defined
+	{
+		Label l = label(exprs.missing());
+		l.addFixup(new Fixup(l.name,site,width,slots.size(),lineno,tc,expr,exprs.size()));
+	}
+	private void constantDef() throws ParserError //NAME = expression, evaluated now or once labels it needs are defined
+	{
+		Label l = label(value(tc-2));
+		if (l.defined || (l.expr >= 0)) throw new ParserError("Duplicate label \"" + l.name + "\" encountered at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		int start = expression();
+		int v = evaluate(start, exprs.size(), lineno, tc);
+		if (v != UNRESOLVED)
+		{
+			exprs.truncate(start);
+			l.pc = v;
+			l.defined = true;
+			definedLabels++;
+			return;
+		}
+		l.expr = start;
+		l.exprEnd = exprs.size();
+		l.lineno = lineno;
+		l.tc = tc;
+		constants.add(l);
+	}
+	private void resolveConstants() throws ParserError //Constants may wait for each other, so evaluate until none makes progress; repeated by every relax() pass, as labels move
+	{
+		for (int i = 0; i < constants.size(); i++) constants.get(i).defined = false;
+		int left = constants.size();
+		boolean progress = true;
+		while (progress && (left > 0))
+		{
+			progress = false;
+			for (int i = 0; i < constants.size(); i++)
+			{
+				Label l = constants.get(i);
+				if (l.defined) continue;
+				int v = evaluate(l.expr, l.exprEnd, l.lineno, l.tc);
+				if (v == UNRESOLVED) continue;
+				l.pc = v;
+				l.defined = true;
+				left--;
+				progress = true;
+			}
+		}
+		for (int i = 0; (left > 0) && (i < constants.size()); i++)
+		{
+			Label l = constants.get(i);
+			if (l.defined) continue;
+			evaluate(l.expr, l.exprEnd, l.lineno, l.tc);
+			throw new ParserError("Couldn't resolve label \"" + tokens.getNames().get(exprs.missing()) + "\" at line " + (l.lineno+1) + ", token " + (l.tc+1) + ". Aborted.");
+		}
+	}
+	private void relax() throws ParserError //Every slot starts short and only ever widens, so passes stop once none has to
+	{
+		int n = slots.size();
+		shift = new int[n + 1];
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			for (int i = 0; i < n; i++)
+			{
+				Slot s = slots.get(i);
+				shift[i+1] = s.org ? 0 : shift[i] + s.grow;
+			}
+			resolveConstants();
+			for (int i = 0; i < n; i++)
+			{
+				Slot s = slots.get(i);
+				if (s.org) continue;
+				int v = evaluate(s.expr, s.exprEnd, s.lineno, s.tc);
+				if (v == UNRESOLVED) throw new ParserError("Couldn't resolve label \"" + tokens.getNames().get(exprs.missing()) + "\" at line " + (s.lineno+1) + ", token " + (s.tc+1) + ". Aborted.");
+				s.value = v;
+				if (s.grow > 0) continue;
+				if (s.mode == REL)
+				{
+					int offset = v - (s.site + shift[i] + 2);
+					if ((offset < -128) || (offset > 127)) s.grow = LONG; //Inverted branch skips JMP to target
+				}
+				else if (v >= 256) s.grow = 1; //Absolute operand takes one byte more
+				if (s.grow > 0) changed = true;
+			}
+		}
+	}
+	private void place() throws ParserError //Move code after widened slots up in place, then write final form of every slot
+	{
+		int n = slots.size();
+		if (n == 0) return;
+		int regions = 1;
+		for (int i = 0; i < n; i++)
+		{
+			if (slots.get(i).org) regions++;
+		}
+		int[] origin = new int[regions], end = new int[regions], first = new int[regions + 1]; //Region r holds slots from first[r] up to .ORG that ends it
+		int r = 0;
+		for (int i = 0; i < n; i++)
+		{
+			Slot s = slots.get(i);
+			if (!s.org) continue;
+			end[r++] = s.end;
+			origin[r] = s.site;
+			first[r] = i + 1;
+		}
+		end[r] = pc;
+		first[regions] = n + 1;
+		boolean[] rewrite = new boolean[regions]; //Overlaps region that grew, so regions there are written again in source order and later code wins as before
+		for (r = 0; r < regions; r++)
+		{
+			int grown = shift[first[r+1] - 1];
+			if (grown == 0) continue;
+			int line = 0;
+			for (int i = first[r]; i < first[r+1] - 1; i++)
+			{
+				if (slots.get(i).grow > 0) line = slots.get(i).lineno;
+			}
+			if (end[r] + grown > Mem6502.SIZE) throw new ParserError("Program counter exceeds $FFFF after widening instruction at line " + (line+1) + ". Aborted.");
+			for (int q = 0; q < regions; q++)
+			{
+				int qend = end[q] + shift[first[q+1] - 1];
+				if ((q != r) && (origin[q] < qend) && (origin[q] < end[r] + grown) && (origin[r] < qend)) rewrite[q] = rewrite[r] = true;
+			}
+		}
+		byte[][] saved = new byte[regions][];
+		for (r = 0; r < regions; r++)
+		{
+			if (!rewrite[r]) continue;
+			saved[r] = (r + 1 < regions) ? slots.get(first[r+1] - 1).bytes : null; //Saved by .ORG that ended region if it may grow, else what is there now is its own
+			if (saved[r] == null) saved[r] = bin.toByteArray(origin[r], end[r]);
+		}
+		for (r = 0; r < regions; r++)
+		{
+			if (rewrite[r])
+			{
+				byte[] b = saved[r];
+				int from = origin[r];
+				for (int i = first[r]; i < first[r+1]; i++) //Stretch of code up to each slot's operand, or to end of region, moved by slots before it
+				{
+					int to = (i < first[r+1] - 1) ? slots.get(i).site + 2 : end[r];
+					for (int a = from; a < to; a++) bin.write(a + shift[i], b[a - origin[r]]);
+					from = to;
+				}
+			}
+			else if (shift[first[r+1] - 1] > 0)
+			{
+				int to = end[r];
+				for (int i = first[r+1] - 2; i >= first[r]; i--) //Backwards, so nothing is overwritten before it moves
+				{
+					Slot s = slots.get(i);
+					for (int a = to - 1; a >= s.site + 2; a--) bin.write(a + shift[i+1], bin.read(a));
+					to = s.site;
+				}
+			}
+			for (int i = first[r]; i < first[r+1] - 1; i++) placeSlot(slots.get(i), slots.get(i).site + shift[i]);
+		}
+		for (int i = 0; i < labels.size(); i++) //Addresses are final now
+		{
+			Label l = labels.at(i);
+			l.pc += shift[l.slot];
+			l.slot = 0;
+		}
+		for (int k = 0; k < spans; k++)
+		{
+			spanAddr[k] += shift[spanFirst[k]];
+			spanEnd[k] += shift[spanLast[k]];
+		}
+		for (int k = 0; k < codes * CODE; k += CODE)
+		{
+			code[k] += shift[code[k+2]];
+			code[k+1] += shift[code[k+3]];
+		}
+	}
+	private void placeSlot(Slot s, int at) throws ParserError //Write final form of slot at its final address
+	{
+		int v = s.value;
+		if ((s.mode == REL) && (s.grow == 0))
+		{
+			bin.write(at, opcodes[s.opindex][REL]);
+			bin.write(at+1, (v - (at+2)) & 0xFF);
+		}
+		else if (s.mode == REL)
+		{
+			bin.write(at, opcodes[s.opindex][REL] ^ 0x20); //Conditional branches come in pairs that differ in this bit only
+			bin.write(at+1, LONG);
+			bin.write(at+2, JMP);
+			bin.write(at+3, v & 0xFF);
+			bin.write(at+4, (v >> 8) & 0xFF);
+		}
+		else if (s.grow == 0)
+		{
+			if (!isByte(v)) throw new ParserError("Expected byte, but found word at line " + (s.lineno+1) + ", token " + (s.tc+1) + ". Aborted.");
+			bin.write(at, opcodes[s.opindex][s.mode]);
+			bin.write(at+1, v & 0xFF);
+		}
+		else
+		{
+			bin.write(at, opcodes[s.opindex][s.mode + WIDE]);
+			bin.write(at+1, v & 0xFF);
+			bin.write(at+2, (v >> 8) & 0xFF);
+		}
+	}
+	private static boolean isByte(int value) //Fits single operand byte, negative values as two's complement
+	{
+		return (value >= -128) && (value <= 255);
+	}
+	private void applyFixups() throws ParserError //Patch phase: evaluate every recorded fixup once
+	{
+		for (int i = 0; i<labels.size(); i++) //Every label once, then only the fixups chained to it
+		{
+			Label l = labels.at(i);
+			for (Fixup fx = l.first; fx != null; fx = fx.next)
+			{
+				int value = evaluate(fx.expr, fx.exprEnd, fx.lineno, fx.tc);
+				if (value == UNRESOLVED) throw new ParserError("Couldn't resolve label \"" + tokens.getNames().get(exprs.missing()) + "\" at line " + (fx.lineno+1) + ", token " + (fx.tc+1) + ". Aborted.");
+				if (fx.sized && ((value < 256) != (fx.width == 1))) throw new ParserError(".DB value became " + ((fx.width == 1) ? "word" : "byte") + " once instructions before its labels were sized at line " + (fx.lineno+1) + ", token " + (fx.tc+1) + "; write it with .BYTE or .WORD. Aborted.");
+				if ((fx.width == 1) && !isByte(value)) throw new ParserError("Expected byte, but found word at line " + (fx.lineno+1) + ", token " + (fx.tc+1) + ". Aborted.");
+				int site = fx.site + shift[fx.slot];
+				bin.write(site,value & 0xFF);
+				if (fx.width == 2) bin.write(site+1,(value >> 8) & 0xFF);
+				resolvedFixups++;
+			}
+			l.first = l.last = null;
+		}
+	}
+	private void operator() throws ParserError //Parse operator construction
+	{
+		int opindex = value(tc-1); //Lexer stores index of operator
+		if (!cycleAnalysis && (openBlocks == 0)) encode(opindex,classify(opindex));
+		else
+		{
+			int at = pc, first = slots.size();
+			encode(opindex,classify(opindex));
+			instruction(at, first);
+		}
+	}
+	private void instruction(int at, int first) //Record instruction just emitted for cycle analysis
+	{
+		if (code == null) code = new int[CODE * 256];
+		else if (codes * CODE == code.length)
+		{
+			int[] nc = new int[code.length * 2];
+			System.arraycopy(code, 0, nc, 0, code.length);
+			code = nc;
+		}
+		int k = codes++ * CODE;
+		code[k] = at;
+		code[k+1] = pc;
+		code[k+2] = first;
+		code[k+3] = slots.size();
+		code[k+4] = spans; //Index current line will get once it is done
+	}
+	private void operand() throws ParserError //Compile and try to evaluate operand expression into opval/opexpr/opsym
+	{
+		opexpr = expression();
+		opsym = exprSymbols > 0;
+		opval = evaluate(opexpr, exprs.size(), lineno, tc);
+	}
+	private int classify(int opindex) throws ParserError //Determine addressing mode from shape of operand
+	{
+		opval = 0;
+		opsym = false;
+		opexpr = exprs.size();
+		if (acceptToken(Tok6502.EOL)) return IMP;
+		if (acceptToken(Tok6502.IMMEDIATE))
+		{
+			operand();
+			return IMM;
+		}
+		if ((le - ls - tc == 1) && acceptToken(Tok6502.LABEL,Tok6502.A)) return ACC; //A alone, as part of expression it is a label
+		if (indirect() && acceptToken(Tok6502.LPAREN))
+		{
+			operand();
+			if (acceptToken(Tok6502.COMMA))
+			{
+				expectToken(Tok6502.LABEL,Tok6502.X);
+				expectToken(Tok6502.RPAREN);
+				return INDX;
+			}
+			expectToken(Tok6502.RPAREN);
+			if (acceptToken(Tok6502.COMMA))
+			{
+				expectToken(Tok6502.LABEL,Tok6502.Y);
+				return INDY;
+			}
+			return IND;
+		}
+		operand();
+		boolean zp = (opval == UNRESOLVED) || (opval < 256); //Operand waiting for labels starts in zero page, relax() widens it if needed
+		if (acceptToken(Tok6502.COMMA))
+		{
+			if (acceptToken(Tok6502.LABEL,Tok6502.X)) return zp ? ZPX : ABSX;
+			if (acceptToken(Tok6502.LABEL,Tok6502.Y)) return zp ? ZPY : ABSY;
+			unexpectedToken();
+		}
+		if (isRelative(opindex) && (zp || opsym)) return REL;
+		return zp ? ZP : ABS;
+	}
+	private boolean indirect() //Operand starts with parenthesis that closes it, closes on ,X) or is followed by ,Y; other ones are grouping of expression, as in (2+3)*4
+	{
+		int at = ls+tc;
+		if ((at >= le) || (tokens.kind(at) != Tok6502.LPAREN)) return false;
+		int depth = 0, m = at;
+		for (; m < le; m++)
+		{
+			if (tokens.kind(m) == Tok6502.LPAREN) depth++;
+			else if ((tokens.kind(m) == Tok6502.RPAREN) && (--depth == 0)) break;
+		}
+		if (m >= le) return true; //Unbalanced, indirect parsing reports it
+		if (m+1 == le) return true;
+		if ((tokens.kind(m+1) == Tok6502.COMMA) && (m+2 < le) && isName(m+2, Tok6502.Y)) return true;
+		return (m-2 > at) && (tokens.kind(m-2) == Tok6502.COMMA) && isName(m-1, Tok6502.X);
+	}
+	private boolean isName(int at, int value)
+	{
+		return (tokens.kind(at) == Tok6502.LABEL) && (tokens.value(at) == value);
+	}
+	private void encode(int opindex, int mode) throws ParserError //Emit opcode and 0, 1 or 2 operand bytes
+	{
+		boolean zp = (mode >= ZP) && (mode <= ZPY);
+		if (zp && (opcodes[opindex][mode] == -1) && (opcodes[opindex][mode + WIDE] != -1)) //No zero page form, absolute one is next shortest
+		{
+			mode += WIDE;
+			zp = false;
+		}
+		int opcode = opcodes[opindex][mode];
+		if (opcode == -1) throw new ParserError("Opcode " + Lex6502.getInstr(opindex) + " is not defined for mode " + modes[mode] + " at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		if ((opval == UNRESOLVED) ? ((mode == REL) || (zp && (opcodes[opindex][mode + WIDE] != -1))) : ((mode == REL) && opsym && (regionSlots > 0)))
+		{
+			slot(opindex, mode); //Size depends on labels, or branch itself may still move
+			return;
+		}
+		int size = operandSize[mode];
+		int value = opval;
+		if (value == UNRESOLVED)
+		{
+			fixup(opexpr, pc+1, size); //Code of operand stays for applyFixups()
+			value = 0; //Placeholder
+		}
+		else
+		{
+			exprs.truncate(opexpr);
+			if ((mode == REL) && opsym) //Label operand of branch becomes offset, plain number already is one
+			{
+				value -= pc+2;
+				if ((value < -128) || (value > 127)) //Address is final, so long form can be emitted right away
+				{
+					emit(opcode ^ 0x20);
+					emit(LONG);
+					emit(JMP);
+					emitWord(opval);
+					return;
+				}
+			}
+			else if ((size == 1) && (mode != REL) && !isByte(value)) throw new ParserError("Expected byte, but found word at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		}
+		emit(opcode);
+		if (size == 1) emit(value & 0xFF);
+		else if (size == 2) emitWord(value);
+	}
+	private void slot(int opindex, int mode) throws ParserError //Emit short form with placeholder, relax() chooses final one
+	{
+		Slot s = new Slot();
+		s.opindex = opindex;
+		s.mode = mode;
+		s.site = pc;
+		s.expr = opexpr;
+		s.exprEnd = exprs.size();
+		s.lineno = lineno;
+		s.tc = tc;
+		emit(opcodes[opindex][mode]);
+		emit(0);
+		slots.add(s); //After its bytes, so listing counts it among slots that move their end only
+		regionSlots++;
+	}
+	private void data(int width) throws ParserError //Expression of .BYTE or .WORD, patched later if it waits for labels
+	{
+		int start = expression();
+		int value = evaluate(start, exprs.size(), lineno, tc);
+		if (value == UNRESOLVED)
+		{
+			fixup(start, pc, width);
+			value = 0;
+		}
+		else
+		{
+			exprs.truncate(start);
+			if ((width == 1) && !isByte(value)) throw new ParserError("Expected byte, but found word at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		}
+		if (width == 1) emit(value & 0xFF);
+		else emitWord(value);
+	}
+	private Block open() //Start recording block, lines up to its end go to body
+	{
+		Block b = new Block();
+		b.line = lineno;
+		b.body = new Tok6502(tokens.getNames());
+		recording = b;
+		return b;
+	}
+	private void incbin(String name, int offset, int length) throws ParserError //Copy range of binary file to program counter in one block
+	{
+		if (binaries == null) throw new ParserError("Can't include binary file " + name + ", no binary resolver is given at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		ByteBuffer data;
+		try {
+			name = Prep6502.fileName(name);
+			binaryFiles.add(name);
+			data = binaries.resolve(name);
+		} catch (IOException e) {
+			throw new ParserError("Binary file " + name + " can't be read (" + e.getMessage() + ") at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		}
+		if (length < 0) length = data.limit() - offset;
+		if ((offset < 0) || (offset > data.limit()) || (length < 0) || (length > data.limit() - offset)) throw new ParserError("Range exceeds size of binary file " + name + " at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		if (pc + length > Mem6502.SIZE) throw new ParserError("Program counter exceeds $FFFF at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		data.limit(offset + length);
+		data.position(offset);
+		if ((spanFrom < 0) && (length > 0))
+		{
+			spanFrom = pc;
+			spanSlot = slots.size();
+		}
+		bin.write(pc, data);
+		pc += length;
+	}
+	private void directive() throws ParserError //Parse directive
+	{
+		if (acceptToken(Tok6502.DIRECTIVE,Tok6502.DB))
+		{
+			do
+			{
+				int start = expression();
+				int value = evaluate(start, exprs.size(), lineno, tc);
+				if (value == UNRESOLVED) //Waits for labels that may move, size follows value they have now and is checked once they are placed
+				{
+					Label l = label(exprs.missing());
+					int width = (provisional(start) < 256) ? 1 : 2;
+					Fixup fx = new Fixup(l.name,pc,width,slots.size(),lineno,tc,start,exprs.size());
+					fx.sized = true;
+					l.addFixup(fx);
+					value = (width == 1) ? 0 : 256; //Placeholder of that size
+				}
+				else exprs.truncate(start);
+				if (value < 256) emit(value);
+				else emitWord(value);
+			} while (acceptToken(Tok6502.COMMA));
+		}
+		else if (acceptToken(Tok6502.DIRECTIVE,Tok6502.WORDS)||acceptToken(Tok6502.DIRECTIVE,Tok6502.WORD))
+		{
+			do
+			{
+				data(2);
+			} while (acceptToken(Tok6502.COMMA));
+		}
+		else if (acceptToken(Tok6502.DIRECTIVE,Tok6502.BYTES)||acceptToken(Tok6502.DIRECTIVE,Tok6502.BYTE))
+		{
+			do
+			{
+				data(1);
+			} while (acceptToken(Tok6502.COMMA));
+		}
+		else if (acceptToken(Tok6502.DIRECTIVE,Tok6502.INCBIN))
+		{
+			expectToken(Tok6502.STRING);
+			String name = tokens.name(ls+tc-1);
+			int offset = 0, length = -1; //Whole file by default
+			if (acceptToken(Tok6502.COMMA))
+			{
+				offset = constant();
+				if (acceptToken(Tok6502.COMMA)) length = constant();
+			}
+			incbin(name, offset, length);
+		}
+		else if (acceptToken(Tok6502.DIRECTIVE,Tok6502.MACRO))
+		{
+			expectToken(Tok6502.LABEL);
+			int id = value(tc-1);
+			if ((id < macros.length) && (macros[id] != null)) throw new ParserError("Duplicate macro \"" + tokens.name(ls+tc-1) + "\" encountered at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+			Block b = open();
+			b.name = tokens.name(ls+tc-1);
+			int params = 0;
+			if (!acceptToken(Tok6502.EOL)) //Matches end of line without consuming it
+			{
+				do
+				{
+					expectToken(Tok6502.LABEL);
+					if (params == b.params.length)
+					{
+						int[] np = new int[params + 4];
+						System.arraycopy(b.params, 0, np, 0, params);
+						b.params = np;
+					}
+					b.params[params++] = value(tc-1);
+				} while (acceptToken(Tok6502.COMMA));
+			}
+			int[] np = new int[params];
+			System.arraycopy(b.params, 0, np, 0, params);
+			b.params = np;
+			if (id >= macros.length)
+			{
+				Block[] nm = new Block[Math.max(macros.length * 2, id + 1)];
+				System.arraycopy(macros, 0, nm, 0, macros.length);
+				macros = nm;
+			}
+			macros[id] = b; //Defined now, so body can't be used before .ENDM
+		}
+		else if (acceptToken(Tok6502.DIRECTIVE,Tok6502.REPT))
+		{
+			int count = constant();
+			open().count = count;
+		}
+		else if (acceptToken(Tok6502.DIRECTIVE,Tok6502.ENDM) || acceptToken(Tok6502.DIRECTIVE,Tok6502.ENDR))
+		{
+			throw new ParserError("Unexpected " + tokens.name(ls+tc-1) + " without block to close at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+		}
+		else if (acceptToken(Tok6502.DIRECTIVE,Tok6502.CYCLES))
+		{
+			int start = expression();
+			int budget = evaluate(start, exprs.size(), lineno, tc);
+			if (budget == UNRESOLVED) provisional(start); //Labels that may move are evaluated by finish(), others must be defined
+			else
+			{
+				exprs.truncate(start);
+				if (budget < 0) throw new ParserError("Cycle budget can't be negative at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+			}
+			if (blocks * BUDGET == budgets.length)
+			{
+				int[] nb = new int[Math.max(BUDGET * 4, budgets.length * 2)];
+				System.arraycopy(budgets, 0, nb, 0, budgets.length);
+				budgets = nb;
+			}
+			int b = blocks++ * BUDGET;
+			budgets[b] = codes;
+			budgets[b+1] = -1;
+			budgets[b+2] = budget;
+			budgets[b+3] = lineno;
+			budgets[b+4] = start;
+			budgets[b+5] = exprs.size();
+			openBlocks++;
+		}
+		else if (acceptToken(Tok6502.DIRECTIVE,Tok6502.ENDC))
+		{
+			int b = blocks - 1;
+			while ((b >= 0) && (budgets[b*BUDGET+1] >= 0)) b--; //Innermost open block
+			if (b < 0) throw new ParserError("Unexpected .ENDC without block to close at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+			budgets[b*BUDGET+1] = codes;
+			openBlocks--;
+		}
+		else if (acceptToken(Tok6502.DIRECTIVE,Tok6502.ORG))
+		{
+			Slot s = new Slot(); //Code after it stays where .ORG puts it, whatever slots before it grow by
+			s.org = true;
+			s.end = pc;
+			if (regionSlots > 0) s.bytes = bin.toByteArray(regionOrigin, pc); //Region may grow into code written after it, place() lays both out again
+			pc = constant();
+			if ((pc < 0) || (pc > Mem6502.SIZE)) throw new ParserError("Origin exceeds $FFFF at line " + (lineno+1) + ", token " + (tc+1) + ". Aborted.");
+			bin.extend(pc);
+			s.site = pc;
+			s.lineno = lineno;
+			slots.add(s);
+			regionSlots = 0;
+			regionOrigin = pc;
+		}
+		else unexpectedToken();
+	}
+}
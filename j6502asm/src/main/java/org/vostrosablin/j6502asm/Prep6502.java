@@ -0,0 +1,408 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Preprocessor (Prep6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+public class Prep6502 {
+	private static final byte[] INCLUDE = {'.','I','N','C','L','U','D','E',' '};
+	public interface IncludeResolver { //Supplies text of included files to in-memory preprocessing
+		CharSequence resolve(String name) throws IOException; //Text of file named by .INCLUDE directive, throws if there is none
+	}
+	private static class MappedFile { //Source file mapped into memory and scanned one line at a time
+		private ByteBuffer map;
+		private int pos = 0, limit;
+		private boolean reuse; //Scan every line to start of text (streaming), or keep whole file in it
+		public char[] text; //Scanned lines: uppercase, without comments and line terminators
+		public int start, length; //Slice of text holding last scanned line
+		public String include; //Name of file included by last scanned line, otherwise null
+		private int used = 0;
+		public MappedFile(String filename, boolean reuse) throws IOException
+		{
+			FileInputStream fis = new FileInputStream(filename);
+			try {
+				FileChannel ch = fis.getChannel();
+				map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()); //Mapping stays valid after channel is closed
+			} finally {
+				fis.close();
+			}
+			limit = map.limit();
+			this.reuse = reuse;
+			text = new char[reuse ? 256 : limit]; //Lines never grow when folded, so whole file always fits
+		}
+		public MappedFile(CharSequence source) //Source held in memory, scanned as its UTF-8 bytes like a file would be
+		{
+			map = Charset.forName("UTF-8").encode(source.toString());
+			limit = map.limit();
+			text = new char[limit];
+		}
+		public boolean nextLine() throws IOException //Split, strip comment and fold case in one pass, false at end of file
+		{
+			if (pos >= limit) return false;
+			if (reuse) used = 0;
+			start = used;
+			int rawStart = pos, rawEnd = -1; //Code part of line, before comment
+			boolean quoted = false; //Strings keep their case and may hold semicolons
+			while (pos < limit)
+			{
+				int b = map.get(pos) & 0xFF;
+				if ((b == '\n') || (b == '\r')) break;
+				pos++;
+				if (rawEnd >= 0) continue; //Inside comment
+				if (b == '"') quoted = !quoted;
+				else if (!quoted)
+				{
+					if (b == ';') {rawEnd = pos - 1; continue;}
+					if ((b >= 'a') && (b <= 'z')) b -= 'a' - 'A';
+				}
+				if (used == text.length)
+				{
+					char[] nt = new char[text.length * 2];
+					System.arraycopy(text, 0, nt, 0, used);
+					text = nt;
+				}
+				text[used++] = (char)b;
+			}
+			if (rawEnd < 0) rawEnd = pos;
+			if (pos < limit) //Skip \n, \r or \r\n
+			{
+				if ((map.get(pos) == '\r') && (pos+1 < limit) && (map.get(pos+1) == '\n')) pos++;
+				pos++;
+			}
+			length = used - start;
+			include = includeName(rawStart, rawEnd);
+			if (include != null) used = start; //Include line itself is not part of output
+			return true;
+		}
+		private String includeName(int from, int to) throws UnsupportedEncodingException //Directive is matched before case folding, as file name keeps its case
+		{
+			while ((from < to) && ((map.get(from) == ' ') || (map.get(from) == '\t'))) from++;
+			if (to - from < INCLUDE.length) return null;
+			for (int i = 0; i < INCLUDE.length; i++)
+			{
+				if (map.get(from+i) != INCLUDE[i]) return null;
+			}
+			from += INCLUDE.length;
+			byte[] raw = new byte[to - from];
+			for (int i = 0; i < raw.length; i++) raw[i] = map.get(from+i);
+			String temp = new String(raw, "UTF-8").trim();
+			boolean chg = false;
+			if (temp.startsWith("\"")) {chg = true; temp = temp.substring(1);}
+			if (temp.endsWith("\"")) {chg = true; temp = temp.substring(0, temp.length()-1);};
+			if (chg) {temp = temp.trim();}
+			return temp;
+		}
+	}
+	public interface BinaryResolver { //Supplies contents of files named by .INCBIN directive
+		ByteBuffer resolve(String name) throws IOException; //Whole file, throws if there is none
+	}
+	public static final BinaryResolver FILES = new BinaryResolver() { //Files found like included ones, mapped rather than read
+		public ByteBuffer resolve(String name) throws IOException
+		{
+			FileInputStream fis = new FileInputStream(new File(name));
+			try {
+				FileChannel ch = fis.getChannel();
+				return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+			} finally {
+				fis.close();
+			}
+		}
+	};
+	public static String fileName(String raw) throws UnsupportedEncodingException //Name taken from preprocessed text, which holds one char per byte of UTF-8 source
+	{
+		byte[] b = new byte[raw.length()];
+		for (int i = 0; i < b.length; i++) b[i] = (byte)raw.charAt(i);
+		return new String(b, "UTF-8");
+	}
+	private static class Cached { //Preprocessed file, valid while file stays unchanged
+		public Src6502 unit;
+		public long modified, size;
+	}
+	private ConcurrentHashMap<String,Cached> cache = new ConcurrentHashMap<String,Cached>(); //Canonical path to preprocessed file
+	private ArrayList<String> stack = new ArrayList<String>(0); //Canonical paths of files being included, outermost first
+	private ArrayList<String> files = new ArrayList<String>(0); //Canonical paths of files read by last preprocess(), in order of inclusion
+	private int threads = 1;
+	private Cache6502 disk; //Persistent cache of preprocessed files, optional
+	private Stats6502 stats; //Collects time spent on each file, optional
+	private ExecutorService pool; //Loads included files ahead of expansion, only while preprocess() runs
+	private ConcurrentHashMap<String,Future<Src6502>> pending = new ConcurrentHashMap<String,Future<Src6502>>(); //Absolute path to file being loaded
+	public Prep6502()
+	{
+	}
+	public Prep6502(int threads) //Load included files concurrently on given number of threads
+	{
+		this.threads = threads;
+	}
+	public Prep6502 fork() //Preprocessor for another thread, sharing files this one keeps preprocessed
+	{
+		Prep6502 p = new Prep6502(threads);
+		p.cache = cache;
+		p.disk = disk;
+		return p;
+	}
+	public void setCache(Cache6502 disk)
+	{
+		this.disk = disk;
+	}
+	public Cache6502 getCache()
+	{
+		return disk;
+	}
+	public void setStats(Stats6502 stats)
+	{
+		this.stats = stats;
+	}
+	private static Src6502 scan(MappedFile f) throws IOException //Preprocess single file, includes are only marked
+	{
+		Src6502 unit = new Src6502();
+		while (f.nextLine())
+		{
+			if (f.include != null) unit.addInclude(f.include);
+			else unit.add(f.text, f.start, f.length);
+		}
+		return unit;
+	}
+	private Src6502 scan(String filename) throws IOException
+	{
+		MappedFile f = new MappedFile(filename, false);
+		String hash = null;
+		if (disk != null)
+		{
+			hash = Cache6502.hash(f.map);
+			Src6502 unit = disk.loadSource(hash);
+			if (unit != null)
+			{
+				unit.setName(filename);
+				return unit;
+			}
+		}
+		Src6502 unit = scan(f);
+		unit.setName(filename);
+		if (disk != null)
+		{
+			unit.setHash(hash);
+			disk.storeSource(hash, unit);
+		}
+		return unit;
+	}
+	private Src6502 load(File file, String path) throws IOException //Preprocessed file from cache, scanned again only if it changed
+	{
+		long[] probe = (stats != null) ? Stats6502.begin() : null;
+		long modified = file.lastModified(), size = file.length();
+		Cached c = cache.get(path);
+		boolean hit = true;
+		if ((c == null) || (c.modified != modified) || (c.size != size))
+		{
+			c = new Cached();
+			c.unit = scan(file.getPath());
+			c.modified = modified;
+			c.size = size;
+			cache.put(path, c);
+			hit = false;
+		}
+		if (stats != null)
+		{
+			Stats6502.Entry e = stats.file(c.unit.getName());
+			stats.end(e, probe);
+			e.lines = c.unit.size();
+			e.cached = hit;
+		}
+		return c.unit;
+	}
+	private Future<Src6502> prefetch(final String filename) //Start loading file on pool, together with everything it includes
+	{
+		String key = new File(filename).getAbsolutePath();
+		Future<Src6502> f = pending.get(key);
+		if (f != null) return f;
+		FutureTask<Src6502> task = new FutureTask<Src6502>(new Callable<Src6502>() {
+			public Src6502 call() throws IOException
+			{
+				File file = new File(filename);
+				Src6502 unit = load(file, file.getCanonicalPath());
+				for (int k = 0; k < unit.includes(); k++) prefetch(unit.includeName(k)); //Workers never wait, so pool can't deadlock
+				return unit;
+			}
+		});
+		f = pending.putIfAbsent(key, task);
+		if (f != null) return f;
+		pool.execute(task);
+		return task;
+	}
+	private Src6502 fetch(File file, String path) throws IOException //Preprocessed file, from pool if it was prefetched
+	{
+		Future<Src6502> f = (pool == null) ? null : pending.get(file.getAbsolutePath());
+		if (f == null) return load(file, path);
+		try {
+			return f.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) throw (IOException)e.getCause();
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Preprocessing interrupted. Aborted.");
+		}
+	}
+	private void include(String filename, Src6502 out) throws IOException //Append lines of file to output, expanding includes in place
+	{
+		File file = new File(filename);
+		String path = file.getCanonicalPath();
+		if (stack.contains(path)) throw new IOException("Circular inclusion of file " + filename + ". Aborted.");
+		if (!files.contains(path)) files.add(path); //Before loading, so missing file is known too
+		Src6502 unit = fetch(file, path);
+		if (pool != null)
+		{
+			for (int k = 0; k < unit.includes(); k++) prefetch(unit.includeName(k)); //Discover all includes first, expansion below waits for them in source order
+		}
+		stack.add(path);
+		int line = 0;
+		for (int k = 0; k < unit.includes(); k++)
+		{
+			out.addLines(unit, line, unit.includeAt(k));
+			line = unit.includeAt(k);
+			include(unit.includeName(k), out);
+		}
+		out.addLines(unit, line, unit.size());
+		stack.remove(stack.size()-1);
+	}
+	public Src6502 preprocess(String filename) throws IOException
+	{
+		Src6502 asmcode = new Src6502();
+		stack.clear();
+		files.clear();
+		if (threads > 1) pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, "Prep6502 loader");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		try {
+			include(filename, asmcode); //Map file, then split it into lines, strip comments and convert to uppercase in a single scan. Splice included files in place.
+		} finally {
+			if (pool != null) pool.shutdownNow();
+			pool = null;
+			pending.clear();
+		}
+		return asmcode;
+	}
+	public ArrayList<String> getFiles() //Files main source depended on in last preprocess(), even if it failed
+	{
+		return files;
+	}
+	public static Src6502 preprocess(CharSequence source, IncludeResolver resolver) throws IOException //Preprocess source held in memory, touches no files and no shared state
+	{
+		Src6502 asmcode = new Src6502();
+		include(null, source, resolver, new ArrayList<String>(0), asmcode);
+		return asmcode;
+	}
+	private static void include(String name, CharSequence text, IncludeResolver resolver, ArrayList<String> names, Src6502 out) throws IOException //In-memory counterpart of include(), files are told apart by name
+	{
+		Src6502 unit = scan(new MappedFile(text));
+		unit.setName(name);
+		names.add(name);
+		int line = 0;
+		for (int k = 0; k < unit.includes(); k++)
+		{
+			out.addLines(unit, line, unit.includeAt(k));
+			line = unit.includeAt(k);
+			String inc = unit.includeName(k);
+			if (names.contains(inc)) throw new IOException("Circular inclusion of file " + inc + ". Aborted.");
+			if (resolver == null) throw new IOException("Can't include file " + inc + ", no include resolver is given. Aborted.");
+			CharSequence inctext = resolver.resolve(inc);
+			if (inctext == null) throw new IOException("Included file " + inc + " is not found. Aborted.");
+			include(inc, inctext, resolver, names, out);
+		}
+		out.addLines(unit, line, unit.size());
+		names.remove(names.size()-1);
+	}
+	public Reader open(String filename) throws IOException //Start streaming preprocessed lines of file
+	{
+		return new Reader(filename);
+	}
+	public static class Reader { //Yields preprocessed lines one at a time, only open files are held in memory
+		private ArrayList<MappedFile> files = new ArrayList<MappedFile>(0); //Include stack, innermost last
+		private ArrayList<String> paths = new ArrayList<String>(0); //Canonical paths of files on stack
+		private MappedFile cur; //File holding last line
+		private Reader(String filename) throws IOException
+		{
+			push(filename);
+		}
+		private void push(String filename) throws IOException
+		{
+			String path = new File(filename).getCanonicalPath();
+			if (paths.contains(path)) throw new IOException("Circular inclusion of file " + filename + ". Aborted.");
+			files.add(new MappedFile(filename, true));
+			paths.add(path);
+		}
+		public boolean nextLine() throws IOException //Advance to next line of source with includes expanded, false at the end
+		{
+			while (!files.isEmpty())
+			{
+				cur = files.get(files.size()-1);
+				if (!cur.nextLine())
+				{
+					close(files.size()-1);
+					continue;
+				}
+				if (cur.include != null)
+				{
+					push(cur.include);
+					continue;
+				}
+				return true;
+			}
+			return false;
+		}
+		public char[] buffer() //Current line is buffer()[offset(), offset()+length())
+		{
+			return cur.text;
+		}
+		public int offset()
+		{
+			return cur.start;
+		}
+		public int length()
+		{
+			return cur.length;
+		}
+		private void close(int i)
+		{
+			files.remove(i);
+			paths.remove(i);
+		}
+		public void close() //Release files that are still open
+		{
+			while (!files.isEmpty()) close(files.size()-1);
+		}
+	}
+}
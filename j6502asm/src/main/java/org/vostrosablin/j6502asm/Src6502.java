@@ -0,0 +1,150 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Preprocessed Source (Src6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+public class Src6502 { //Lines of preprocessed source, each one a slice of a shared character buffer
+	private char[][] buf = new char[64][];
+	private int[] off = new int[64], len = new int[64];
+	private int count = 0;
+	private int[] incAt = new int[0]; //Line index each included file is inserted before (single file only)
+	private String[] incName = new String[0];
+	private int incCount = 0;
+	private Src6502[] segUnit = new Src6502[0]; //Spliced source only: file each run of lines was copied from
+	private int[] segFrom = new int[0], segAt = new int[0]; //First line of run in that file and in this source
+	private int segCount = 0;
+	private String hash; //Hash of file contents, when file went through persistent cache
+	private String name; //Path of single file
+	public void add(char[] buf, int off, int len)
+	{
+		if (count == this.buf.length)
+		{
+			int n = count * 2;
+			char[][] nb = new char[n][];
+			int[] no = new int[n], nl = new int[n];
+			System.arraycopy(this.buf, 0, nb, 0, count);
+			System.arraycopy(this.off, 0, no, 0, count);
+			System.arraycopy(this.len, 0, nl, 0, count);
+			this.buf = nb; this.off = no; this.len = nl;
+		}
+		this.buf[count] = buf;
+		this.off[count] = off;
+		this.len[count] = len;
+		count++;
+	}
+	public void addInclude(String name) //Mark included file at current end of lines
+	{
+		if (incCount == incAt.length)
+		{
+			int n = Math.max(4, incCount * 2);
+			int[] na = new int[n];
+			String[] nn = new String[n];
+			System.arraycopy(incAt, 0, na, 0, incCount);
+			System.arraycopy(incName, 0, nn, 0, incCount);
+			incAt = na; incName = nn;
+		}
+		incAt[incCount] = count;
+		incName[incCount] = name;
+		incCount++;
+	}
+	public void addLines(Src6502 unit, int from, int to) //Copy lines [from, to) of another source, remembering where they came from
+	{
+		if (from >= to) return;
+		if (segCount == segUnit.length)
+		{
+			int n = Math.max(4, segCount * 2);
+			Src6502[] nu = new Src6502[n];
+			int[] nf = new int[n], na = new int[n];
+			System.arraycopy(segUnit, 0, nu, 0, segCount);
+			System.arraycopy(segFrom, 0, nf, 0, segCount);
+			System.arraycopy(segAt, 0, na, 0, segCount);
+			segUnit = nu; segFrom = nf; segAt = na;
+		}
+		segUnit[segCount] = unit;
+		segFrom[segCount] = from;
+		segAt[segCount] = count;
+		segCount++;
+		for (int i = from; i < to; i++) add(unit.buf[i], unit.off[i], unit.len[i]);
+	}
+	public int size()
+	{
+		return count;
+	}
+	public int segments()
+	{
+		return segCount;
+	}
+	public Src6502 segmentUnit(int k)
+	{
+		return segUnit[k];
+	}
+	public int segmentFrom(int k)
+	{
+		return segFrom[k];
+	}
+	public int segmentAt(int k)
+	{
+		return segAt[k];
+	}
+	public int segmentLength(int k)
+	{
+		return ((k + 1 < segCount) ? segAt[k+1] : count) - segAt[k];
+	}
+	public int includes()
+	{
+		return incCount;
+	}
+	public int includeAt(int k)
+	{
+		return incAt[k];
+	}
+	public String includeName(int k)
+	{
+		return incName[k];
+	}
+	public char[] buffer(int line)
+	{
+		return buf[line];
+	}
+	public int offset(int line)
+	{
+		return off[line];
+	}
+	public int length(int line)
+	{
+		return len[line];
+	}
+	public String getHash()
+	{
+		return hash;
+	}
+	public void setHash(String hash)
+	{
+		this.hash = hash;
+	}
+	public String getName()
+	{
+		return name;
+	}
+	public void setName(String name)
+	{
+		this.name = name;
+	}
+	public String line(int line) //Copy of line text, for diagnostics
+	{
+		return new String(buf[line], off[line], len[line]);
+	}
+}
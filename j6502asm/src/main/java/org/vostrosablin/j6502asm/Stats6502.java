@@ -0,0 +1,160 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Statistics (Stats6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class Stats6502 { //Time, allocation and volume of each stage and each source file of one run, rendered as JSON
+	public static class Entry { //Counts not applying to entry stay at -1 and are left out of report
+		public String name;
+		public long wall, cpu, allocated; //Nanoseconds, nanoseconds and bytes, on thread that did the work
+		public long lines = -1, tokens = -1, labels = -1, fixups = -1, bytes = -1;
+		public boolean cached; //File was not scanned again
+		private Entry(String name)
+		{
+			this.name = name;
+		}
+	}
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private static final boolean hasCpu = threads.isCurrentThreadCpuTimeSupported();
+	private static final boolean hasAlloc = hasAllocatedBytes();
+	private ArrayList<Entry> stages = new ArrayList<Entry>(0), files = new ArrayList<Entry>(0);
+	private HashMap<String,Entry> byFile = new HashMap<String,Entry>();
+	private long[] run = begin();
+	private static boolean hasAllocatedBytes()
+	{
+		try {
+			return (threads instanceof com.sun.management.ThreadMXBean) && ((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemorySupported() && ((com.sun.management.ThreadMXBean)threads).isThreadAllocatedMemoryEnabled();
+		} catch (LinkageError e) { //Platform without com.sun.management
+			return false;
+		}
+	}
+	public static long[] begin() //Wall time, CPU time and allocated bytes of calling thread so far
+	{
+		long cpu = hasCpu ? threads.getCurrentThreadCpuTime() : 0;
+		long alloc = hasAlloc ? ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+		return new long[] {System.nanoTime(), cpu, alloc};
+	}
+	public synchronized void end(Entry e, long[] begin) //Add work done by calling thread since begin() to entry
+	{
+		long[] now = begin();
+		e.wall += now[0] - begin[0];
+		e.cpu += now[1] - begin[1];
+		e.allocated += now[2] - begin[2];
+	}
+	public synchronized Entry stage(String name) //New stage, reported in order of creation
+	{
+		Entry e = new Entry(name);
+		stages.add(e);
+		return e;
+	}
+	public synchronized Entry stage(int i) //Stage created earlier
+	{
+		return stages.get(i);
+	}
+	public synchronized Entry file(String name) //Entry of source file, the same one for every call with that name
+	{
+		Entry e = byFile.get(name);
+		if (e == null)
+		{
+			e = new Entry(name);
+			byFile.put(name, e);
+			files.add(e);
+		}
+		return e;
+	}
+	public synchronized void tokens(Src6502 spliced, Tok6502 tokens) //Add tokens of spliced source to files they came from
+	{
+		for (int k = 0; k < spliced.segments(); k++)
+		{
+			String name = spliced.segmentUnit(k).getName();
+			if (name == null) continue;
+			Entry e = file(name);
+			int at = spliced.segmentAt(k);
+			if (e.tokens < 0) e.tokens = 0;
+			e.tokens += tokens.firstAt(at + spliced.segmentLength(k)) - tokens.firstAt(at);
+		}
+	}
+	public synchronized String toJson(String input, String output) //Whole run, totals are measured from creation of this object
+	{
+		Entry total = new Entry("total");
+		end(total, run);
+		long lines = 0;
+		for (int i = 0; i < stages.size(); i++) lines = Math.max(lines, stages.get(i).lines);
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n");
+		sb.append("  \"input\": ").append(quote(input)).append(",\n");
+		sb.append("  \"output\": ").append(quote(output)).append(",\n");
+		sb.append("  \"cpuTimeSupported\": ").append(hasCpu).append(",\n");
+		sb.append("  \"allocationSupported\": ").append(hasAlloc).append(",\n");
+		sb.append("  \"total\": ");
+		entry(sb, total, false);
+		sb.append(",\n");
+		sb.append("  \"linesPerSecond\": ").append((total.wall > 0) ? Math.round(lines * 1000000000.0 / total.wall) : 0).append(",\n");
+		sb.append("  \"stages\": [");
+		list(sb, stages, false);
+		sb.append("],\n");
+		sb.append("  \"files\": [");
+		list(sb, files, true);
+		sb.append("]\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+	private static void list(StringBuilder sb, ArrayList<Entry> entries, boolean file)
+	{
+		for (int i = 0; i < entries.size(); i++)
+		{
+			sb.append((i == 0) ? "\n    " : ",\n    ");
+			entry(sb, entries.get(i), file);
+		}
+		if (!entries.isEmpty()) sb.append("\n  ");
+	}
+	private static void entry(StringBuilder sb, Entry e, boolean file)
+	{
+		sb.append("{\"name\": ").append(quote(e.name));
+		sb.append(", \"wallNanos\": ").append(e.wall);
+		sb.append(", \"cpuNanos\": ").append(e.cpu);
+		sb.append(", \"allocatedBytes\": ").append(e.allocated);
+		count(sb, "lines", e.lines);
+		count(sb, "tokens", e.tokens);
+		count(sb, "labels", e.labels);
+		count(sb, "fixups", e.fixups);
+		count(sb, "bytes", e.bytes);
+		if (file) sb.append(", \"cached\": ").append(e.cached);
+		sb.append('}');
+	}
+	private static void count(StringBuilder sb, String key, long value)
+	{
+		if (value >= 0) sb.append(", \"").append(key).append("\": ").append(value);
+	}
+	private static String quote(String s)
+	{
+		if (s == null) return "null";
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if ((c == '"') || (c == '\\')) sb.append('\\').append(c);
+			else if (c < 0x20) sb.append(String.format("\\u%04x", (int)c));
+			else sb.append(c);
+		}
+		return sb.append('"').toString();
+	}
+}
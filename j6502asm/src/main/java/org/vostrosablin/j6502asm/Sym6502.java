@@ -0,0 +1,82 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Symbol Table (Sym6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+public class Sym6502 { //Open addressing hash table of labels, keyed by name
+	private Parse6502.Label[] slots = new Parse6502.Label[64]; //Power of two, kept at most half full
+	private Parse6502.Label[] order = new Parse6502.Label[32]; //Labels in order of first appearance
+	private int count = 0;
+	private long probes = 0; //Slots inspected by all lookups so far
+	private static int hash(String name)
+	{
+		int h = name.hashCode();
+		return h ^ (h >>> 16); //Spread upper bits, table index only uses the lower ones
+	}
+	private int find(String name) //Index of slot holding name, or of the empty slot where it belongs
+	{
+		int mask = slots.length - 1;
+		int i = hash(name) & mask;
+		while (true)
+		{
+			probes++;
+			Parse6502.Label l = slots[i];
+			if ((l == null) || (l.name == name) || l.name.equals(name)) return i;
+			i = (i + 1) & mask;
+		}
+	}
+	private void grow()
+	{
+		Parse6502.Label[] old = slots;
+		slots = new Parse6502.Label[old.length * 2];
+		for (int i = 0; i < old.length; i++)
+		{
+			if (old[i] != null) slots[find(old[i].name)] = old[i];
+		}
+	}
+	public Parse6502.Label lookup(String name) //Find label, null if it was neither defined nor requested
+	{
+		return slots[find(name)];
+	}
+	public Parse6502.Label get(String name) //Find label, creating an undefined entry on first use
+	{
+		int i = find(name);
+		if (slots[i] != null) return slots[i];
+		Parse6502.Label l = new Parse6502.Label(name);
+		slots[i] = l;
+		if (count == order.length)
+		{
+			Parse6502.Label[] no = new Parse6502.Label[order.length * 2];
+			System.arraycopy(order, 0, no, 0, count);
+			order = no;
+		}
+		order[count++] = l;
+		if (count * 2 > slots.length) grow();
+		return l;
+	}
+	public int size()
+	{
+		return count;
+	}
+	public Parse6502.Label at(int index) //Label by order of first appearance
+	{
+		return order[index];
+	}
+	public long getProbes()
+	{
+		return probes;
+	}
+}
@@ -0,0 +1,239 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - 6502 Assembler Token Stream (Tok6502)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.util.Locale;
+
+public class Tok6502 { //Token stream, one parallel array per token field
+	//Token kinds
+	public static final int NUM = 0; //value is the number
+	public static final int LABEL = 1; //value is interned name id
+	public static final int OPERATOR = 2; //value is instruction index
+	public static final int DIRECTIVE = 3; //value is interned name id
+	public static final int IMMEDIATE = 4;
+	public static final int COMMA = 5;
+	public static final int COLON = 6;
+	public static final int LPAREN = 7;
+	public static final int RPAREN = 8;
+	public static final int EOL = 9; //Never stored, matches end of line in parser
+	public static final int STRING = 10; //value is interned id of text between quotes
+	public static final int ARITH = 11; //value is the character: + - * / & | ^ ~ < > =
+	public static final String[] KINDS = {"NUM","LABEL","OPERATOR","DIRECTIVE","IMMEDIATE","COMMA","COLON","LPAREN","RPAREN","EOL","STRING","ARITH"};
+	//Names interned into every pool ahead of source, so parser can test for them by id
+	public static final int A = 0, X = 1, Y = 2, DB = 3, WORDS = 4, WORD = 5, BYTES = 6, BYTE = 7, ORG = 8, INCBIN = 9, MACRO = 10, ENDM = 11, REPT = 12, ENDR = 13, CYCLES = 14, ENDC = 15;
+	private static final String[] RESERVED = {"A","X","Y",".DB",".WORDS",".WORD",".BYTES",".BYTE",".ORG",".INCBIN",".MACRO",".ENDM",".REPT",".ENDR",".CYCLES",".ENDC"};
+	private static final String[] PUNCT = {null,null,null,null,"#",",",":","(",")"};
+
+	public static class Names { //Pool of interned identifiers, each one gets a small integer id
+		private String[] names = new String[64];
+		private int[] slots = new int[128]; //Open addressing table of id+1, zero marks empty slot
+		private int count = 0;
+		public Names()
+		{
+			for (int i = 0; i < RESERVED.length; i++) intern(RESERVED[i]);
+		}
+		private static int hash(char[] buf, int off, int len) //Same as String.hashCode()
+		{
+			int h = 0;
+			for (int i = 0; i < len; i++) h = 31 * h + buf[off + i];
+			return h;
+		}
+		private static boolean same(String s, char[] buf, int off, int len)
+		{
+			if (s.length() != len) return false;
+			for (int i = 0; i < len; i++)
+			{
+				if (s.charAt(i) != buf[off + i]) return false;
+			}
+			return true;
+		}
+		private int add(String s, int slot)
+		{
+			if (count == names.length)
+			{
+				String[] nn = new String[names.length * 2];
+				System.arraycopy(names, 0, nn, 0, count);
+				names = nn;
+			}
+			names[count] = s;
+			slots[slot] = ++count;
+			if (count * 2 > slots.length) rehash();
+			return count - 1;
+		}
+		private void rehash()
+		{
+			slots = new int[slots.length * 2];
+			int mask = slots.length - 1;
+			for (int id = 0; id < count; id++)
+			{
+				int i = names[id].hashCode() & mask;
+				while (slots[i] != 0) i = (i + 1) & mask;
+				slots[i] = id + 1;
+			}
+		}
+		public int intern(char[] buf, int off, int len) //Id of name held in buf, String is only created for a new name
+		{
+			int mask = slots.length - 1;
+			int i = hash(buf, off, len) & mask;
+			while (slots[i] != 0)
+			{
+				if (same(names[slots[i] - 1], buf, off, len)) return slots[i] - 1;
+				i = (i + 1) & mask;
+			}
+			return add(new String(buf, off, len), i);
+		}
+		public int intern(String s)
+		{
+			int mask = slots.length - 1;
+			int i = s.hashCode() & mask;
+			while (slots[i] != 0)
+			{
+				if (names[slots[i] - 1].equals(s)) return slots[i] - 1;
+				i = (i + 1) & mask;
+			}
+			return add(s, i);
+		}
+		public String get(int id)
+		{
+			return names[id];
+		}
+		public int size()
+		{
+			return count;
+		}
+	}
+
+	private byte[] kind;
+	private int[] value, line, col;
+	private int count = 0;
+	private Names names;
+	public Tok6502()
+	{
+		this(new Names());
+	}
+	public Tok6502(Names names) //Stream sharing an existing name pool
+	{
+		this.names = names;
+		kind = new byte[256];
+		value = new int[256];
+		line = new int[256];
+		col = new int[256];
+	}
+	private void grow()
+	{
+		int n = kind.length * 2;
+		byte[] nk = new byte[n];
+		int[] nv = new int[n], nl = new int[n], nc = new int[n];
+		System.arraycopy(kind, 0, nk, 0, count);
+		System.arraycopy(value, 0, nv, 0, count);
+		System.arraycopy(line, 0, nl, 0, count);
+		System.arraycopy(col, 0, nc, 0, count);
+		kind = nk; value = nv; line = nl; col = nc;
+	}
+	public void add(int kind, int value, int line, int col)
+	{
+		if (count == this.kind.length) grow();
+		this.kind[count] = (byte)kind;
+		this.value[count] = value;
+		this.line[count] = line;
+		this.col[count] = col;
+		count++;
+	}
+	public void append(Tok6502 other) //Copy tokens of another stream, renumbering names into this pool
+	{
+		int[] map = null; //Other pool id to id in this pool, built in order of first use so ids come out as if lexed here
+		if (other.names != names)
+		{
+			map = new int[other.names.size()];
+			for (int i = 0; i < map.length; i++) map[i] = -1;
+		}
+		for (int i = 0; i < other.count; i++)
+		{
+			int k = other.kind[i], v = other.value[i];
+			if ((map != null) && isNamed(k))
+			{
+				if (map[v] < 0) map[v] = names.intern(other.names.get(v));
+				v = map[v];
+			}
+			add(k, v, other.line[i], other.col[i]);
+		}
+	}
+	public void appendLines(Tok6502 other, int from, int to, int at) //Copy tokens of lines [from, to) of stream sharing this pool, renumbering them to start at line at
+	{
+		int shift = at - from;
+		for (int i = other.firstAt(from); (i < other.count) && (other.line[i] < to); i++) add(other.kind[i], other.value[i], other.line[i] + shift, other.col[i]);
+	}
+	public int firstAt(int line) //Index of first token on given line or after it
+	{
+		int lo = 0, hi = count;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (this.line[mid] < line) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+	public void clear() //Drop tokens, but keep interned names
+	{
+		count = 0;
+	}
+	public int size()
+	{
+		return count;
+	}
+	public int kind(int i)
+	{
+		return kind[i];
+	}
+	public int value(int i)
+	{
+		return value[i];
+	}
+	public int line(int i)
+	{
+		return line[i];
+	}
+	public int col(int i)
+	{
+		return col[i];
+	}
+	public Names getNames()
+	{
+		return names;
+	}
+	public static boolean isNamed(int kind) //Value of token is interned name id
+	{
+		return (kind == LABEL) || (kind == DIRECTIVE) || (kind == STRING);
+	}
+	public String name(int i) //Name of LABEL or DIRECTIVE token, text of STRING token
+	{
+		return names.get(value[i]);
+	}
+	public String text(int i) //Printable form of token, for diagnostics
+	{
+		switch (kind[i])
+		{
+			case NUM: return "$" + Integer.toHexString(value[i]).toUpperCase(Locale.ENGLISH);
+			case LABEL: case DIRECTIVE: return names.get(value[i]);
+			case STRING: return "\"" + names.get(value[i]) + "\"";
+			case ARITH: return String.valueOf((char)value[i]);
+			case OPERATOR: return Lex6502.getInstr(value[i]);
+			default: return PUNCT[kind[i]];
+		}
+	}
+}
@@ -0,0 +1,460 @@
+package org.vostrosablin.j6502asm.app;
+//J6502ASM - Java 6502 (Cross) Assembler
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.io.IOException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.vostrosablin.j6502asm.Cache6502;
+import org.vostrosablin.j6502asm.Lex6502;
+import org.vostrosablin.j6502asm.Listing6502;
+import org.vostrosablin.j6502asm.Lex6502.LexerError;
+import org.vostrosablin.j6502asm.Mem6502;
+import org.vostrosablin.j6502asm.Out6502;
+import org.vostrosablin.j6502asm.Parse6502;
+import org.vostrosablin.j6502asm.Parse6502.ParserError;
+import org.vostrosablin.j6502asm.Prep6502;
+import org.vostrosablin.j6502asm.Src6502;
+import org.vostrosablin.j6502asm.Stats6502;
+import org.vostrosablin.j6502asm.Tok6502;
+
+import static java.lang.System.*;
+
+public class J6502ASM {
+
+	/**
+	 * @param args
+	 * @throws ParserError 
+	 * @throws LexerError 
+	 * @throws ParseException 
+	 * @throws IOException 
+	 */
+	public static void main(String[] args) {
+		out.println("J6502ASM Cross-Assembler v0.12a");
+		Tok6502 tokens = null;
+		String filename = "";
+		String outfilename = "out.bin";
+		Option inpf = new Option("i", "if", true, "Input File");
+		inpf.setArgs(1);
+		inpf.setOptionalArg(false);
+		inpf.setArgName("Input File ");
+		Option outf = new Option("o", "of", true, "Output File");
+		outf.setArgs(1);
+		outf.setOptionalArg(false);
+		outf.setArgName("Output File ");
+		Option prnc = new Option("p", "printcode", false, "Print Listing of Assembled Code");
+		Option lstf = new Option("l", "listing", true, "Listing File With Address, Bytes and Source of Every Line");
+		lstf.setArgs(1);
+		lstf.setOptionalArg(false);
+		lstf.setArgName("Listing File ");
+		Option cycl = new Option("y", "cycles", false, "Add Cycles of Every Line and Per-Label Totals to Listing");
+		Option cutn = new Option("n", "cutnull", false, "Cut Leading Null Bytes in Output");
+		Option strm = new Option("s", "stream", false, "Stream Source Through All Stages Line by Line");
+		Option mnft = new Option("m", "manifest", true, "Manifest File Listing Inputs and Outputs for Batch Mode");
+		mnft.setArgs(1);
+		mnft.setOptionalArg(false);
+		mnft.setArgName("Manifest File ");
+		Option serv = new Option("S", "serve", true, "Serve Assembly Requests on Loopback Port (0 Picks Free Port)");
+		serv.setArgs(1);
+		serv.setOptionalArg(false);
+		serv.setArgName("Port ");
+		Option conn = new Option("C", "connect", true, "Assemble Through Server Listening on Port");
+		conn.setArgs(1);
+		conn.setOptionalArg(false);
+		conn.setArgName("Port ");
+		Option frmt = new Option("f", "format", true, "Output Format: bin, hex, prg or segments");
+		frmt.setArgs(1);
+		frmt.setOptionalArg(false);
+		frmt.setArgName("Format ");
+		Option stjs = new Option("j", "stats-json", true, "Write Per-Stage and Per-File Statistics as JSON");
+		stjs.setArgs(1);
+		stjs.setOptionalArg(false);
+		stjs.setArgName("Report File ");
+		Option cdir = new Option("c", "cache-dir", true, "Directory for Persistent Cache of Preprocessed and Lexed Files");
+		cdir.setArgs(1);
+		cdir.setOptionalArg(false);
+		cdir.setArgName("Directory ");
+		Option wtch = new Option("w", "watch", false, "Stay Resident and Reassemble When Sources Change");
+		Option thrd = new Option("t", "threads", true, "Worker Threads");
+		thrd.setArgs(1);
+		thrd.setOptionalArg(false);
+		thrd.setArgName("Count ");
+		Options opts = new Options();
+		opts.addOption(serv);
+		opts.addOption(conn);
+		opts.addOption(mnft);
+		opts.addOption(frmt);
+		opts.addOption(stjs);
+		opts.addOption(cdir);
+		opts.addOption(wtch);
+		opts.addOption(thrd);
+		opts.addOption(strm);
+		opts.addOption(cutn);
+		opts.addOption(prnc);
+		opts.addOption(lstf);
+		opts.addOption(cycl);
+		opts.addOption(inpf);
+		opts.addOption(outf);
+		CommandLineParser cliparser = new PosixParser();
+		CommandLine cln = null;
+		try {
+			cln = cliparser.parse(opts, args);
+		} catch (ParseException e) {
+			e.printStackTrace();
+			exit(1);
+		}
+		if (!cln.hasOption('i') && !cln.hasOption('m') && !cln.hasOption('S'))
+		{
+			out.println("Input file is not specified. Aborted.");
+			exit(1);
+		}
+		if (cln.hasOption('y') && !cln.hasOption('p') && !cln.hasOption('l'))
+		{
+			out.println("Option --cycles needs --listing or --printcode. Aborted.");
+			exit(1);
+		}
+		String[] inputs = cln.hasOption('i') ? cln.getOptionValues('i') : new String[0];
+		boolean batch = cln.hasOption('m') || (inputs.length > 1) || ((inputs.length == 1) && J6502Batch.isGlob(inputs[0]));
+		if (inputs.length == 1) filename = inputs[0];
+		if (cln.hasOption('o')) outfilename = cln.getOptionValue('o');
+		String format = Out6502.BIN;
+		if (cln.hasOption('f'))
+		{
+			format = cln.getOptionValue('f').toLowerCase(Locale.ENGLISH);
+			if (!Out6502.isFormat(format))
+			{
+				out.println("Unknown output format " + format + ". Aborted.");
+				exit(1);
+			}
+		}
+		int threads = 1;
+		if (cln.hasOption('t'))
+		{
+			try {
+				threads = Integer.parseInt(cln.getOptionValue('t'));
+			} catch (NumberFormatException e) {
+				threads = 0;
+			}
+			if (threads < 1)
+			{
+				out.println("Thread count must be a positive number. Aborted.");
+				exit(1);
+			}
+		}
+		Cache6502 disk = null;
+		if (cln.hasOption('c'))
+		{
+			try {
+				disk = new Cache6502(new File(cln.getOptionValue('c')));
+			} catch (IOException e) {
+				e.printStackTrace();
+				exit(1);
+			}
+		}
+		if (cln.hasOption('S'))
+		{
+			try {
+				new J6502Server(port(cln.getOptionValue('S')), disk).run();
+			} catch (IOException e) {
+				e.printStackTrace();
+				exit(1);
+			}
+			return;
+		}
+		if (cln.hasOption('C'))
+		{
+			if (batch || !format.equals(Out6502.BIN) || cln.hasOption('p') || cln.hasOption('l'))
+			{
+				out.println("Option --connect needs single input file and binary output without listing. Aborted.");
+				exit(1);
+			}
+			out.println("Assembling file " + filename + " into " + outfilename + " through server");
+			long starttime = System.nanoTime();
+			try {
+				J6502Client client = new J6502Client(port(cln.getOptionValue('C')));
+				J6502Client.Reply r = client.assembleFile(filename, cln.hasOption('n'));
+				client.close();
+				for (int i = 0; i < r.diagnostics.size(); i++) out.println(r.diagnostics.get(i));
+				if (!r.ok) exit(1);
+				OutputStream of = new FileOutputStream(new File(outfilename));
+				try {
+					of.write(r.binary);
+				} finally {
+					of.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+				exit(1);
+			}
+			out.println("Task done in " + ((double)(System.nanoTime()-starttime) / 1000000000.0));
+			return;
+		}
+		if (batch)
+		{
+			if (cln.hasOption('o') || cln.hasOption('w') || cln.hasOption('s') || cln.hasOption('p') || cln.hasOption('l') || cln.hasOption('j'))
+			{
+				out.println("Options -of, --watch, --stream, --printcode, --listing and --stats-json need single input file. Aborted.");
+				exit(1);
+			}
+			J6502Batch jobs = new J6502Batch(format);
+			try {
+				for (int i = 0; i < inputs.length; i++)
+				{
+					if (J6502Batch.isGlob(inputs[i])) jobs.addGlob(inputs[i]);
+					else jobs.add(inputs[i], null);
+				}
+				if (cln.hasOption('m')) jobs.addManifest(cln.getOptionValue('m'));
+			} catch (IOException e) {
+				e.printStackTrace();
+				exit(1);
+			}
+			out.println("Assembling " + jobs.size() + " files");
+			if (!jobs.run(threads, cln.hasOption('n'), disk)) exit(1);
+			return;
+		}
+		if (cln.hasOption('w'))
+		{
+			out.println("Watching file " + filename + ", assembling into " + outfilename);
+			try {
+				new J6502Watch(filename, outfilename, format, cln.hasOption('n'), threads, disk).run();
+			} catch (IOException e) {
+				e.printStackTrace();
+				exit(1);
+			}
+			return;
+		}
+		out.println("Assembling file " + filename + " into " + outfilename);
+		Stats6502 stats = cln.hasOption('j') ? new Stats6502() : null;
+		long starttime,tasktime,endtime;
+		starttime = tasktime = System.nanoTime();
+		long[] probe = Stats6502.begin();
+		Mem6502 bin = null;
+		Src6502 asmcode = null; //Kept for listing
+		Parse6502 parser = new Parse6502();
+		parser.setListing(cln.hasOption('p') || cln.hasOption('l'));
+		parser.setCycles(cln.hasOption('y'));
+		if (cln.hasOption('s'))
+		{
+			out.print("Stages 1-3 - Streaming preprocessing, lexical analysis, parsing and assembling...");
+			bin = streamAssemble(filename, parser, stats);
+			if (stats != null) stats.end(stats.stage(0), probe);
+		}
+		else
+		{
+			out.print("Stage 1 - Preprocessing...");
+			Prep6502 prepr = new Prep6502(threads);
+			prepr.setCache(disk);
+			prepr.setStats(stats);
+			try {
+				asmcode = prepr.preprocess(filename);
+			} catch (IOException e) {
+				e.printStackTrace();
+				exit(1);
+			}
+			prepr = null;
+			if (stats != null)
+			{
+				Stats6502.Entry st = stats.stage("preprocess");
+				stats.end(st, probe);
+				st.lines = asmcode.size();
+			}
+			endtime = System.nanoTime();
+			out.println(" done in " + ((double)(endtime-tasktime) / 1000000000.0) + cacheReport(disk));
+			out.print("Stage 2 - Lexical analysis...");
+			tasktime = System.nanoTime();
+			probe = Stats6502.begin();
+			Lex6502 lexer = new Lex6502(asmcode);
+			try {
+				if (disk != null) tokens = lexer.tokenizeUnits(disk); //Files are lexed one by one, so cached streams can be spliced in
+				else tokens = lexer.tokenizeInput(threads);
+			} catch (LexerError e) {
+				e.printStackTrace();
+				exit(1);
+			}
+			lexer = null;
+			if (stats != null)
+			{
+				Stats6502.Entry st = stats.stage("lex");
+				stats.end(st, probe);
+				st.lines = asmcode.size();
+				st.tokens = tokens.size();
+				stats.tokens(asmcode, tokens);
+			}
+			endtime = System.nanoTime();
+			out.println(" done in " + ((double)(endtime-tasktime) / 1000000000.0) + cacheReport(disk));
+			out.print("Stage 3 - Parsing and assembling...");
+			tasktime = System.nanoTime();
+			probe = Stats6502.begin();
+			try {
+				parser.parse(tokens);
+				bin = parser.finish();
+			} catch (ParserError e) {
+				e.printStackTrace();
+				exit(1);
+			}
+			if (stats != null)
+			{
+				Stats6502.Entry st = stats.stage("assemble");
+				stats.end(st, probe);
+				st.tokens = tokens.size();
+				st.labels = parser.getDefinedLabels();
+				st.fixups = parser.getResolvedFixups();
+			}
+		}
+		endtime = System.nanoTime();
+		out.println(" done in " + ((double)(endtime-tasktime) / 1000000000.0));
+		out.print("Stage 4 - Writing output...");
+		tasktime = System.nanoTime();
+		probe = Stats6502.begin();
+		long written = 0;
+		try {
+			written = Out6502.write(bin, new File(outfilename), format, cln.hasOption('n'));
+		} catch (FileNotFoundException e)
+		{
+			e.printStackTrace();
+			exit(1);
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+			exit(1);
+		}
+		if (stats != null)
+		{
+			Stats6502.Entry st = stats.stage("write");
+			stats.end(st, probe);
+			st.bytes = written;
+		}
+		endtime = System.nanoTime();
+		out.println(" done in " + ((double)(endtime-tasktime) / 1000000000.0));
+		try {
+			if (cln.hasOption('l'))
+			{
+				Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(cln.getOptionValue('l'))), "UTF-8"));
+				try {
+					new Listing6502(w, bin).write(asmcode, parser);
+				} finally {
+					w.close();
+				}
+			}
+			if (cln.hasOption('p'))
+			{
+				out.println("Assembler output:");
+				Writer w = new BufferedWriter(new OutputStreamWriter(out)); //Flushed once, not on every line
+				new Listing6502(w, bin).write(asmcode, parser);
+				w.flush();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			exit(1);
+		}
+		endtime = System.nanoTime();
+		out.println("Task done in " + ((double)(endtime-starttime) / 1000000000.0));
+		if (stats != null)
+		{
+			try {
+				Writer w = new OutputStreamWriter(new FileOutputStream(new File(cln.getOptionValue('j'))), "UTF-8");
+				try {
+					w.write(stats.toJson(filename, outfilename));
+				} finally {
+					w.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+				exit(1);
+			}
+		}
+	}
+
+	private static int port(String value) //Port number of option, exits if it isn't one
+	{
+		int port = -1;
+		try {
+			port = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+		}
+		if ((port < 0) || (port > 65535))
+		{
+			out.println("Port must be a number in range 0-65535. Aborted.");
+			exit(1);
+		}
+		return port;
+	}
+
+	static String cacheReport(Cache6502 disk) //Cache use of stage, counts are reset for the next one
+	{
+		if (disk == null) return "";
+		String report = " (cache: " + disk.getHits() + " hits, " + disk.getMisses() + " misses)";
+		disk.resetCounts();
+		return report;
+	}
+
+	private static Mem6502 streamAssemble(String filename, Parse6502 parser, Stats6502 stats) //Pass each line through all stages at once, memory use doesn't grow with source size
+	{
+		long tokencount = 0;
+		int lineno = 0;
+		Lex6502 lexer = new Lex6502();
+		Tok6502 line = new Tok6502(); //Reused for every line, keeps interned names
+		Mem6502 bin = null;
+		try {
+			Prep6502.Reader reader = new Prep6502().open(filename);
+			try {
+				while (reader.nextLine())
+				{
+					line.clear();
+					lexer.tokenizeLine(reader.buffer(), reader.offset(), reader.length(), lineno++, line);
+					tokencount += line.size();
+					parser.parse(line);
+				}
+			} finally {
+				reader.close();
+			}
+			bin = parser.finish();
+			if (stats != null)
+			{
+				Stats6502.Entry st = stats.stage("stream"); //Timed by caller
+				st.lines = lineno;
+				st.tokens = tokencount;
+				st.labels = parser.getDefinedLabels();
+				st.fixups = parser.getResolvedFixups();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			exit(1);
+		} catch (LexerError e) {
+			e.printStackTrace();
+			exit(1);
+		} catch (ParserError e) {
+			e.printStackTrace();
+			exit(1);
+		}
+		return bin;
+	}
+
+}
@@ -0,0 +1,192 @@
+package org.vostrosablin.j6502asm.app;
+//J6502ASM - 6502 Assembler Batch Mode (J6502Batch)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.vostrosablin.j6502asm.Assembler6502;
+import org.vostrosablin.j6502asm.Cache6502;
+import org.vostrosablin.j6502asm.Out6502;
+import org.vostrosablin.j6502asm.Prep6502;
+
+import static java.lang.System.*;
+
+class J6502Batch { //Assembles many independent source files in one run, on a pool of worker threads
+	private ArrayList<String> inputs = new ArrayList<String>(0), outputs = new ArrayList<String>(0);
+	private String format;
+	private static class Done { //Outcome of one file
+		public Assembler6502.Result result;
+		public String error; //Set if output couldn't be written
+		public long bytes;
+		public long time;
+	}
+	public static boolean isGlob(String name)
+	{
+		return (name.indexOf('*') >= 0) || (name.indexOf('?') >= 0) || (name.indexOf('[') >= 0) || (name.indexOf('{') >= 0);
+	}
+	J6502Batch(String format)
+	{
+		this.format = format;
+	}
+	public static String outputFor(String input, String format) //Input name with extension replaced by one of output format
+	{
+		int dot = input.lastIndexOf('.');
+		int sep = Math.max(input.lastIndexOf('/'), input.lastIndexOf(File.separatorChar));
+		if (dot > sep + 1) input = input.substring(0, dot);
+		return input + Out6502.extension(format);
+	}
+	public void add(String input, String output)
+	{
+		inputs.add(input);
+		outputs.add((output != null) ? output : outputFor(input, format));
+	}
+	public void addGlob(String pattern) throws IOException //Files matching pattern, ** crosses directories
+	{
+		String[] parts = pattern.replace(File.separatorChar, '/').split("/");
+		StringBuilder base = new StringBuilder();
+		int fixed = 0; //Leading path elements without wildcards
+		while ((fixed < parts.length - 1) && !isGlob(parts[fixed]))
+		{
+			base.append(parts[fixed]).append('/');
+			fixed++;
+		}
+		final Path root = Paths.get(base.length() > 0 ? base.toString() : ".");
+		final boolean relative = (base.length() == 0); //Match names without leading "./"
+		final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+		int depth = (pattern.indexOf("**") >= 0) ? Integer.MAX_VALUE : parts.length - fixed;
+		final ArrayList<String> found = new ArrayList<String>(0);
+		if (Files.isDirectory(root))
+		{
+			Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), depth, new SimpleFileVisitor<Path>() {
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+				{
+					Path name = relative ? root.relativize(file) : file;
+					if (attrs.isRegularFile() && matcher.matches(name)) found.add(name.toString());
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		if (found.isEmpty()) throw new IOException("No files match " + pattern + ". Aborted.");
+		Collections.sort(found); //Same order on every platform
+		for (int i = 0; i < found.size(); i++) add(found.get(i), null);
+	}
+	public void addManifest(String filename) throws IOException //Lines of "input [output]", ';' starts a comment
+	{
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(filename), "UTF-8"));
+		try {
+			String line;
+			int lineno = 0;
+			while ((line = in.readLine()) != null)
+			{
+				lineno++;
+				int comment = line.indexOf(';');
+				if (comment >= 0) line = line.substring(0, comment);
+				line = line.trim();
+				if (line.length() == 0) continue;
+				String[] fields = line.split("[ \t]+");
+				if (fields.length > 2) throw new IOException("Unexpected text after output file at line " + lineno + " of manifest " + filename + ". Aborted.");
+				add(fields[0], (fields.length > 1) ? fields[1] : null);
+			}
+		} finally {
+			in.close();
+		}
+	}
+	public int size()
+	{
+		return inputs.size();
+	}
+	public boolean run(int threads, final boolean cutnull, final Cache6502 disk) //Status of each file in input order, then totals. False if any file failed.
+	{
+		long starttime = nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		final Prep6502 prepr = new Prep6502(); //Template for preprocessors of jobs, so header shared by many inputs is preprocessed once
+		prepr.setCache(disk);
+		ArrayList<Future<Done>> jobs = new ArrayList<Future<Done>>(0);
+		for (int i = 0; i < inputs.size(); i++)
+		{
+			final String input = inputs.get(i), output = outputs.get(i);
+			jobs.add(pool.submit(new Callable<Done>() {
+				public Done call()
+				{
+					Done d = new Done();
+					long tasktime = nanoTime();
+					d.result = Assembler6502.assembleFile(input, prepr.fork());
+					if (d.result.isSuccess())
+					{
+						try {
+							d.bytes = Out6502.write(d.result.getImage(), new File(output), format, cutnull);
+						} catch (IOException e) {
+							d.error = "Can't write " + output + ": " + e.getMessage();
+						}
+					}
+					d.time = nanoTime() - tasktime;
+					return d;
+				}
+			}));
+		}
+		int failed = 0;
+		long lines = 0;
+		try {
+			for (int i = 0; i < jobs.size(); i++) //Report in input order, so output doesn't depend on scheduling
+			{
+				Done d = jobs.get(i).get();
+				String time = " in " + ((double)d.time / 1000000000.0);
+				if (!d.result.isSuccess() || (d.error != null))
+				{
+					failed++;
+					String error = (d.error != null) ? d.error : d.result.getDiagnostics().get(0);
+					out.println("FAILED " + inputs.get(i) + time + ": " + error);
+					continue;
+				}
+				lines += d.result.getLines();
+				out.println("OK " + inputs.get(i) + " -> " + outputs.get(i) + " (" + d.result.getLines() + " lines, " + d.bytes + " bytes)" + time);
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			pool.shutdown();
+		}
+		double secs = (double)(nanoTime() - starttime) / 1000000000.0;
+		out.println("Assembled " + (jobs.size() - failed) + " of " + jobs.size() + " files in " + secs + " on " + threads + " threads");
+		out.println("Throughput: " + Math.round(jobs.size() / secs) + " files/s, " + Math.round(lines / secs) + " lines/s");
+		return failed == 0;
+	}
+}
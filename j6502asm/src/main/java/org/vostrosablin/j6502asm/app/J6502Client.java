@@ -0,0 +1,83 @@
+package org.vostrosablin.j6502asm.app;
+//J6502ASM - 6502 Assembler Server Client (J6502Client)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+public class J6502Client { //Connection to assembler started with --serve, requests are answered in order
+	public static class Reply {
+		public boolean ok;
+		public int lines; //Source lines after preprocessing
+		public List<String> diagnostics = new ArrayList<String>(0);
+		public byte[] binary; //Empty if assembly failed
+	}
+	private Socket s;
+	private DataInputStream in;
+	private DataOutputStream req;
+	public J6502Client(int port) throws IOException //Connect to server on this machine, started by same user as its token file can only be read by owner
+	{
+		byte[] token = Files.readAllBytes(J6502Server.tokenFile(port).toPath());
+		s = new Socket(InetAddress.getByName(null), port);
+		in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+		req = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+		req.writeUTF(new String(token, "UTF-8").trim());
+	}
+	public Reply assembleFile(String filename, boolean cutnull) throws IOException //File is sent by absolute path, included files are found relative to server's working directory
+	{
+		req.writeInt(J6502Server.MAGIC);
+		req.writeByte(J6502Server.REQ_FILE);
+		req.writeBoolean(cutnull);
+		req.writeUTF(new File(filename).getAbsolutePath());
+		return reply();
+	}
+	public Reply assemble(CharSequence source, boolean cutnull) throws IOException
+	{
+		byte[] raw = source.toString().getBytes("UTF-8");
+		req.writeInt(J6502Server.MAGIC);
+		req.writeByte(J6502Server.REQ_SOURCE);
+		req.writeBoolean(cutnull);
+		req.writeInt(raw.length);
+		req.write(raw);
+		return reply();
+	}
+	private Reply reply() throws IOException
+	{
+		req.flush();
+		Reply r = new Reply();
+		r.ok = in.readBoolean();
+		r.lines = in.readInt();
+		int n = in.readInt();
+		for (int i = 0; i < n; i++) r.diagnostics.add(in.readUTF());
+		r.binary = new byte[in.readInt()];
+		in.readFully(r.binary);
+		return r;
+	}
+	public void close() throws IOException
+	{
+		s.close();
+	}
+}
@@ -0,0 +1,214 @@
+package org.vostrosablin.j6502asm.app;
+//J6502ASM - 6502 Assembler Server Mode (J6502Server)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.vostrosablin.j6502asm.Assembler6502;
+import org.vostrosablin.j6502asm.Cache6502;
+import org.vostrosablin.j6502asm.Prep6502;
+
+import static java.lang.System.*;
+
+class J6502Server { //Assembles requests of local clients, each connection is served on its own thread
+	//Wire format, all numbers big endian as written by DataOutputStream:
+	//hello    = UTF token read from token file, sent once when connection opens
+	//request  = int MAGIC, byte kind, boolean cutnull, then UTF path (REQ_FILE) or int length and UTF-8 bytes (REQ_SOURCE)
+	//response = boolean ok, int lines, int count and count UTF diagnostics, int length and bytes of binary
+	static final int MAGIC = 0x4A363552; //"J65R"
+	static final int REQ_FILE = 1; //Assemble file on disk, path as seen by server
+	static final int REQ_SOURCE = 2; //Assemble source sent with request, includes are read by server
+	static final int MAX_SOURCE = 16 << 20; //Larger requests are refused
+	static final int HELLO_TIMEOUT = 10000; //Milliseconds client has to send token
+	static final int MAX_CONNECTIONS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2); //More connections at once are closed
+	private int port;
+	private String token; //Proves client may read files of user running server
+	private Prep6502 prepr = new Prep6502(); //Template for preprocessors of connections, they share preprocessed files
+	private ServerSocket ss;
+	J6502Server(int port, Cache6502 disk)
+	{
+		this.port = port;
+		prepr.setCache(disk);
+	}
+	public void run() throws IOException //Serve until process is stopped
+	{
+		ss = new ServerSocket(port, 50, InetAddress.getByName(null)); //Loopback only, no remote clients
+		File tf = tokenFile(ss.getLocalPort());
+		token = writeToken(tf);
+		out.println("Listening on " + ss.getInetAddress().getHostAddress() + ":" + ss.getLocalPort() + ", token in " + tf.getPath());
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_CONNECTIONS, MAX_CONNECTIONS, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, "J6502Server connection");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		pool.allowCoreThreadTimeOut(true); //Idle server keeps no threads
+		try {
+			while (true)
+			{
+				final Socket s = ss.accept();
+				try {
+					pool.execute(new Runnable() {
+						public void run()
+						{
+							serve(s);
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					out.println("Connection refused, " + MAX_CONNECTIONS + " already open");
+					s.close();
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+			ss.close();
+			tf.delete();
+		}
+	}
+	static File tokenFile(int port) //Where server of this user on given port keeps its token
+	{
+		return new File(getProperty("user.home"), ".j6502asm-" + port + ".token");
+	}
+	private static String writeToken(File tf) throws IOException //New random token in file only owner may read
+	{
+		byte[] raw = new byte[32];
+		new SecureRandom().nextBytes(raw);
+		StringBuilder sb = new StringBuilder(64);
+		for (int i = 0; i < raw.length; i++) sb.append(Character.forDigit((raw[i] >> 4) & 15, 16)).append(Character.forDigit(raw[i] & 15, 16));
+		Path p = tf.toPath();
+		Files.deleteIfExists(p); //Left over by server that was killed
+		try {
+			Files.createFile(p, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} catch (UnsupportedOperationException e) { //Not POSIX file system
+			Files.createFile(p);
+			tf.setReadable(false, false);
+			tf.setWritable(false, false);
+			tf.setReadable(true, true);
+			tf.setWritable(true, true);
+		}
+		tf.deleteOnExit();
+		Files.write(p, sb.toString().getBytes("UTF-8"));
+		return sb.toString();
+	}
+	private void serve(Socket s) //Answer requests of one connection until client closes it
+	{
+		Prep6502 local = prepr.fork();
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+			DataOutputStream res = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+			s.setSoTimeout(HELLO_TIMEOUT);
+			if (!MessageDigest.isEqual(token.getBytes("UTF-8"), in.readUTF().getBytes("UTF-8"))) //Time taken doesn't tell how much of token was right
+			{
+				out.println("Connection refused, wrong token");
+				return;
+			}
+			s.setSoTimeout(0);
+			while (true)
+			{
+				int magic;
+				try {
+					magic = in.readInt();
+				} catch (EOFException e) {
+					break; //Client is done
+				}
+				if (magic != MAGIC) break; //Not our client
+				int kind = in.readByte();
+				boolean cutnull = in.readBoolean();
+				long tasktime = nanoTime();
+				String what;
+				Assembler6502.Result r;
+				if (kind == REQ_FILE)
+				{
+					what = in.readUTF();
+					r = Assembler6502.assembleFile(what, local);
+				}
+				else if (kind == REQ_SOURCE)
+				{
+					int len = in.readInt();
+					if ((len < 0) || (len > MAX_SOURCE)) break;
+					byte[] raw = new byte[len];
+					in.readFully(raw);
+					what = "source of " + len + " bytes";
+					r = Assembler6502.assemble(new String(raw, "UTF-8"), new Prep6502.IncludeResolver() {
+						public CharSequence resolve(String name) throws IOException
+						{
+							return read(name);
+						}
+					}, Prep6502.FILES); //Includes and binaries are found on this machine alike
+				}
+				else break;
+				byte[] bin = r.toByteArray(cutnull);
+				List<String> diags = r.getDiagnostics();
+				res.writeBoolean(r.isSuccess());
+				res.writeInt(r.getLines());
+				res.writeInt(diags.size());
+				for (int i = 0; i < diags.size(); i++) res.writeUTF(diags.get(i));
+				res.writeInt(bin.length);
+				res.write(bin);
+				res.flush();
+				out.println((r.isSuccess() ? "OK " : "FAILED ") + what + " in " + ((double)(nanoTime()-tasktime) / 1000000000.0));
+			}
+		} catch (IOException e) {
+			out.println("Connection dropped: " + e.getMessage());
+		} finally {
+			try {
+				s.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+	private static String read(String name) throws IOException //Included file for source requests, relative to working directory of server
+	{
+		File f = new File(name);
+		if (!f.isFile()) return null;
+		Reader in = new InputStreamReader(new FileInputStream(f), "UTF-8");
+		try {
+			StringBuilder sb = new StringBuilder((int)f.length());
+			char[] buf = new char[8192];
+			int n;
+			while ((n = in.read(buf)) > 0) sb.append(buf, 0, n);
+			return sb.toString();
+		} finally {
+			in.close();
+		}
+	}
+}
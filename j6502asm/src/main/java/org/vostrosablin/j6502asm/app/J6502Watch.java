@@ -0,0 +1,215 @@
+package org.vostrosablin.j6502asm.app;
+//J6502ASM - 6502 Assembler Watch Mode (J6502Watch)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.vostrosablin.j6502asm.Cache6502;
+import org.vostrosablin.j6502asm.Lex6502;
+import org.vostrosablin.j6502asm.Lex6502.LexerError;
+import org.vostrosablin.j6502asm.Mem6502;
+import org.vostrosablin.j6502asm.Out6502;
+import org.vostrosablin.j6502asm.Parse6502;
+import org.vostrosablin.j6502asm.Parse6502.ParserError;
+import org.vostrosablin.j6502asm.Prep6502;
+import org.vostrosablin.j6502asm.Src6502;
+import org.vostrosablin.j6502asm.Tok6502;
+
+import static java.lang.System.*;
+
+class J6502Watch { //Stays resident and reassembles when main source or any file it includes changes
+	private static final long SETTLE = 50; //Milliseconds to wait for more events, editors often save in several steps
+	private String filename, outfilename;
+	private String format;
+	private boolean cutnull;
+	private Prep6502 prepr; //Keeps preprocessed files until they change
+	private Cache6502 disk; //Persistent cache, optional
+	private Lex6502 lexer = new Lex6502();
+	private Tok6502.Names names = new Tok6502.Names(); //Shared by all cached streams, so they are spliced without renumbering
+	private int compacted = names.size(); //Size of pool when it was last rebuilt from streams in use
+	private HashMap<Src6502,Tok6502> lexed = new HashMap<Src6502,Tok6502>(); //Tokens of preprocessed file, lines numbered within file
+	private WatchService ws;
+	private HashMap<Path,WatchKey> dirs = new HashMap<Path,WatchKey>(); //Registered directories
+	private HashSet<Path> watched = new HashSet<Path>(); //Files last build depended on
+	private ArrayList<String> binaries = new ArrayList<String>(0); //Files last build read through .INCBIN
+	private int builds = 0;
+	J6502Watch(String filename, String outfilename, String format, boolean cutnull, int threads, Cache6502 disk)
+	{
+		this.filename = filename;
+		this.outfilename = outfilename;
+		this.format = format;
+		this.cutnull = cutnull;
+		this.disk = disk;
+		prepr = new Prep6502(threads);
+		prepr.setCache(disk);
+	}
+	public void run() throws IOException //Never returns unless interrupted
+	{
+		ws = FileSystems.getDefault().newWatchService();
+		try {
+			while (true)
+			{
+				build();
+				watch();
+				waitForChange();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			ws.close();
+		}
+	}
+	private void build() //Assemble once, errors are reported and wait for the next change
+	{
+		builds++;
+		out.println("Build " + builds + ":");
+		long starttime,tasktime,endtime;
+		starttime = tasktime = nanoTime();
+		out.print("Stage 1 - Preprocessing...");
+		Src6502 asmcode = null;
+		try {
+			asmcode = prepr.preprocess(filename); //Unchanged files come from cache
+		} catch (IOException e) {
+			out.println(" failed: " + e.getMessage());
+			return;
+		}
+		endtime = nanoTime();
+		out.println(" done in " + ((double)(endtime-tasktime) / 1000000000.0) + J6502ASM.cacheReport(disk));
+		out.print("Stage 2 - Lexical analysis...");
+		tasktime = nanoTime();
+		HashMap<Src6502,Tok6502> kept = new HashMap<Src6502,Tok6502>(); //Streams of files still in use
+		int fresh = 0;
+		try {
+			for (int k = 0; k < asmcode.segments(); k++)
+			{
+				Src6502 unit = asmcode.segmentUnit(k);
+				if (kept.containsKey(unit)) continue;
+				Tok6502 unittokens = lexed.get(unit);
+				if (unittokens == null)
+				{
+					unittokens = lexer.tokenizeUnit(unit, names, disk);
+					fresh++;
+				}
+				kept.put(unit, unittokens);
+			}
+		} catch (LexerError e) {
+			out.println(" failed: " + Lex6502.firstError(asmcode, e).getMessage());
+			return;
+		}
+		if (names.size() > 2 * compacted) compact(kept); //Names of edited away identifiers pile up in resident pool
+		lexed = kept;
+		Tok6502 tokens = new Tok6502(names);
+		for (int k = 0; k < asmcode.segments(); k++)
+		{
+			int from = asmcode.segmentFrom(k);
+			tokens.appendLines(lexed.get(asmcode.segmentUnit(k)), from, from + asmcode.segmentLength(k), asmcode.segmentAt(k));
+		}
+		endtime = nanoTime();
+		out.println(" done in " + ((double)(endtime-tasktime) / 1000000000.0) + " (" + fresh + " of " + kept.size() + " files lexed)" + J6502ASM.cacheReport(disk));
+		out.print("Stage 3 - Parsing and assembling...");
+		tasktime = nanoTime();
+		Mem6502 bin = null;
+		Parse6502 parser = new Parse6502(tokens);
+		binaries = parser.getBinaryFiles();
+		try {
+			bin = parser.parseAndAssemble();
+		} catch (ParserError e) {
+			out.println(" failed: " + e.getMessage());
+			return;
+		}
+		try {
+			Out6502.write(bin, new File(outfilename), format, cutnull);
+		} catch (IOException e) {
+			out.println(" failed: " + e.getMessage());
+			return;
+		}
+		endtime = nanoTime();
+		out.println(" done in " + ((double)(endtime-tasktime) / 1000000000.0));
+		out.println("Build done in " + ((double)(endtime-starttime) / 1000000000.0));
+	}
+	private void compact(HashMap<Src6502,Tok6502> kept) //Move streams in use to new pool holding only names they use
+	{
+		Tok6502.Names pool = new Tok6502.Names();
+		Iterator<Map.Entry<Src6502,Tok6502>> it = kept.entrySet().iterator();
+		while (it.hasNext())
+		{
+			Map.Entry<Src6502,Tok6502> e = it.next();
+			Tok6502 t = new Tok6502(pool);
+			t.append(e.getValue());
+			e.setValue(t);
+		}
+		names = pool;
+		compacted = names.size();
+	}
+	private void watch() throws IOException //Register directories of all files last build read
+	{
+		watched.clear();
+		ArrayList<String> files = new ArrayList<String>(prepr.getFiles());
+		for (int i = 0; i < binaries.size(); i++) files.add(new File(binaries.get(i)).getCanonicalPath());
+		for (int i = 0; i < files.size(); i++)
+		{
+			Path file = Paths.get(files.get(i));
+			watched.add(file);
+			Path dir = file.getParent();
+			if ((dir == null) || dirs.containsKey(dir)) continue;
+			try {
+				dirs.put(dir, dir.register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE));
+			} catch (IOException e) {
+				out.println("Can't watch directory " + dir + ": " + e.getMessage());
+			}
+		}
+	}
+	private void waitForChange() throws InterruptedException
+	{
+		boolean changed = false;
+		while (!changed)
+		{
+			WatchKey key = ws.take();
+			changed |= changed(key);
+			Thread.sleep(SETTLE);
+			while ((key = ws.poll()) != null) changed |= changed(key);
+		}
+	}
+	private boolean changed(WatchKey key) //Whether events of key touch any watched file
+	{
+		Path dir = (Path)key.watchable();
+		boolean hit = false;
+		List<WatchEvent<?>> events = key.pollEvents();
+		for (int i = 0; i < events.size(); i++)
+		{
+			WatchEvent<?> ev = events.get(i);
+			if (ev.kind() == StandardWatchEventKinds.OVERFLOW) hit = true; //Events were lost
+			else if (watched.contains(dir.resolve((Path)ev.context()))) hit = true;
+		}
+		if (!key.reset()) dirs.remove(dir); //Directory is gone
+		return hit;
+	}
+}
@@ -0,0 +1,214 @@
+package org.vostrosablin.j6502asm;
+//J6502ASM - Tests of In-Memory Assembler (Assembler6502Test)
+
+//    This file is part of J6502ASM.
+//
+//    J6502ASM is free software: you can redistribute it and/or modify
+//    it under the terms of the GNU General Public License as published by
+//    the Free Software Foundation, either version 3 of the License, or
+//    (at your option) any later version.
+//
+//    J6502ASM is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//    GNU General Public License for more details.
+//
+//    You should have received a copy of the GNU General Public License
+//    along with J6502ASM.  If not, see <http://www.gnu.org/licenses/>.
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class Assembler6502Test { //Sources assembled in memory, bytes compared with hand-assembled ones
+	private static final Map<String, String> FILES = new HashMap<String, String>(); //Included files by name
+	private static final Map<String, byte[]> BINARIES = new HashMap<String, byte[]>(); //.INCBIN files by name
+	static
+	{
+		FILES.put("consts.inc", "BORDER = $D020\nCOLOR = 2\n");
+		BINARIES.put("data.bin", new byte[] {1, 2, 3, 4, 5});
+	}
+	private static final Prep6502.IncludeResolver INCLUDES = new Prep6502.IncludeResolver() {
+		public CharSequence resolve(String name) throws IOException
+		{
+			String text = FILES.get(name);
+			if (text == null) throw new FileNotFoundException(name);
+			return text;
+		}
+	};
+	private static final Prep6502.BinaryResolver BINS = new Prep6502.BinaryResolver() {
+		public ByteBuffer resolve(String name) throws IOException
+		{
+			byte[] data = BINARIES.get(name);
+			if (data == null) throw new FileNotFoundException(name);
+			return ByteBuffer.wrap(data);
+		}
+	};
+	private static Assembler6502.Result assemble(String... lines)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < lines.length; i++) sb.append(lines[i]).append('\n');
+		return Assembler6502.assemble(sb, INCLUDES, BINS);
+	}
+	private static void assertCode(String hex, int from, String... lines) //Bytes from address on must be the given ones
+	{
+		Assembler6502.Result r = assemble(lines);
+		assertTrue(r.getDiagnostics().toString(), r.isSuccess());
+		String[] bytes = hex.split(" ");
+		byte[] expected = new byte[bytes.length];
+		for (int i = 0; i < bytes.length; i++) expected[i] = (byte)Integer.parseInt(bytes[i], 16);
+		assertArrayEquals(expected, r.getImage().toByteArray(from, from + expected.length));
+	}
+	private static void assertError(String text, String... lines) //Assembly must fail with diagnostic holding text
+	{
+		Assembler6502.Result r = assemble(lines);
+		assertFalse(r.isSuccess());
+		assertTrue(r.getDiagnostics().toString(), r.getDiagnostics().get(0).contains(text));
+	}
+
+	//Relaxation
+	@Test
+	public void forwardLabelInZeroPageStaysShort()
+	{
+		assertCode("A5 03 60 07", 0, "LDA DATA", "RTS", "DATA: .DB 7");
+	}
+	@Test
+	public void forwardLabelAboveZeroPageWidens()
+	{
+		assertCode("AD 04 10 60 07", 0x1000, ".ORG $1000", "LDA DATA", "RTS", "DATA: .DB 7");
+	}
+	@Test
+	public void widenedInstructionMovesLabelsAfterIt()
+	{
+		assertCode("AD 06 10 4C 06 10 60", 0x1000, ".ORG $1000", "LDA DATA", "JMP DATA", "DATA: RTS");
+	}
+	@Test
+	public void noZeroPageFormTakesAbsolute()
+	{
+		assertCode("99 10 00", 0, "STA $10,Y");
+	}
+	@Test
+	public void branchOutOfRangeBecomesLong()
+	{
+		assertCode("F0 03 4C 00 20", 0x1000, ".ORG $1000", "BNE FAR", ".ORG $2000", "FAR: RTS");
+	}
+	@Test
+	public void branchWithinRangeStaysShort()
+	{
+		assertCode("D0 01 EA 60", 0x1000, ".ORG $1000", "BNE DONE", "NOP", "DONE: RTS");
+	}
+	@Test
+	public void laterOrgOverwritesWidenedRegion()
+	{
+		assertCode("4C 00 10 BD EE 20 EA", 0x1000, ".ORG $1000", "START: JMP START", "LDA TBL,X", "NOP", ".ORG $1004", ".DB $EE", ".ORG $2000", "TBL: .DB 1");
+	}
+	@Test
+	public void dataUsesLabelAfterWidenedInstruction()
+	{
+		assertCode("AD 03 10 60 03 10 03 10", 0x1000, ".ORG $1000", "LDA FWD", "FWD: RTS", ".DB <FWD, >FWD, FWD");
+	}
+	@Test
+	public void orgCantUseLabelAfterWidenedInstruction()
+	{
+		assertError("depends on size of instruction at line 2", ".ORG $1000", "LDA FWD", "FWD: RTS", ".ORG FWD+$100");
+	}
+
+	//Expressions
+	@Test
+	public void operators()
+	{
+		assertCode("03 01 07 05 FF FF 0E", 0, ".DB 7/2, 5&3, 5|2, 6^3, ~0&$FF, -1&$FF, 2+3*4");
+	}
+	@Test
+	public void lowAndHighByteOfForwardLabel()
+	{
+		assertCode("A9 06 A2 10 60 00", 0x1000, ".ORG $1000", "LDA #<PTR+1", "LDX #>PTR+1", "RTS", "PTR: .DB 0");
+	}
+	@Test
+	public void constantsFromIncludedFile()
+	{
+		assertCode("A9 02 8D 20 D0", 0, ".INCLUDE \"consts.inc\"", "LDA #COLOR", "STA BORDER");
+	}
+	@Test
+	public void constantWaitingForLabel()
+	{
+		assertCode("AD 05 10 EA EA", 0x1000, ".ORG $1000", "LDA VAL", "NOP", "NOP", "VAL = HERE", "HERE:");
+	}
+	@Test
+	public void parenthesesGroupUnlessIndirect()
+	{
+		assertCode("A5 14 B1 20 A1 20 6C 34 12 B5 05", 0, "LDA (2+3)*4", "LDA ($20),Y", "LDA ($20,X)", "JMP ($1234)", "LDA (2+3),X");
+	}
+	@Test
+	public void divisionByZero()
+	{
+		assertError("Division by zero at line 1", "LDA 1/0");
+	}
+
+	//Macros and repetition
+	@Test
+	public void macroWithParameters()
+	{
+		assertCode("A9 01 8D 20 D0 A5 10 95 20", 0, ".MACRO STORE VAL, ADDR", "LDA VAL", "STA ADDR", ".ENDM", "STORE #$01, $D020", "STORE $10, $20,X");
+	}
+	@Test
+	public void macroLabelsAreLocal()
+	{
+		assertCode("CA D0 FD CA D0 FD", 0, ".MACRO WAIT", "LOOP: DEX", "BNE LOOP", ".ENDM", "WAIT", "WAIT");
+	}
+	@Test
+	public void repeat()
+	{
+		assertCode("0A 0A 0A 60", 0, ".REPT 3", "ASL A", ".ENDR", "RTS");
+	}
+	@Test
+	public void missingEndOfMacro()
+	{
+		assertError("Missing .ENDM for macro", ".MACRO M", "NOP");
+	}
+
+	//Included binaries
+	@Test
+	public void includedBinary()
+	{
+		assertCode("02 03 04 60", 0, ".INCBIN \"data.bin\", 1, 3", "RTS");
+	}
+
+	//Cycle budgets
+	@Test
+	public void budgetMet()
+	{
+		assertTrue(assemble(".CYCLES 7", "LDA $2000", "STA $20", ".ENDC").isSuccess());
+	}
+	@Test
+	public void budgetExceeded()
+	{
+		assertError("takes up to 8 cycles, over its budget of 7", ".CYCLES 7", "LDA $2000", "STA $2000", ".ENDC");
+	}
+	@Test
+	public void indexedTableCrossingPageCostsMore()
+	{
+		assertError("takes up to 5 cycles, over its budget of 4", ".ORG $1000", ".CYCLES 4", "LDA TBL,X", ".ENDC", "RTS", ".ORG $20F0", "TBL: .DB 0", ".ORG $2110", "END: .DB 0");
+	}
+	@Test
+	public void nestedBudgets()
+	{
+		assertError("Block started at line 2 takes up to 4 cycles, over its budget of 2", ".CYCLES 10", ".CYCLES 2", "NOP", "NOP", ".ENDC", ".ENDC");
+	}
+	@Test
+	public void budgetUsesLabelAfterWidenedInstruction()
+	{
+		assertError("takes up to 4 cycles, over its budget of 3", ".ORG $1000", "LDA FAR", "FWD: RTS", ".CYCLES FWD-$1000", "LDA $2000", ".ENDC", ".ORG $300", "FAR: NOP");
+	}
+	@Test
+	public void missingEndOfBudget()
+	{
+		assertError("Missing .ENDC for .CYCLES started at line 1", ".CYCLES 4", "NOP");
+	}
+}